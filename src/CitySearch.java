@@ -1,5 +1,5 @@
-import autocomplete.Autocomplete;
-import autocomplete.TreeSetAutocomplete;
+import autocomplete.CompletionTrieAutocomplete;
+import autocomplete.WeightedAutocomplete;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -29,8 +29,9 @@ public class CitySearch {
             Scanner line = new Scanner(input.nextLine()).useDelimiter("\t");
             cities.put(line.next(), line.nextInt());
         }
-        Autocomplete autocomplete = new TreeSetAutocomplete();
-        autocomplete.addAll(cities.keySet());
+        // Cities are weighted by population so the largest matching cities are found without collecting every match.
+        WeightedAutocomplete autocomplete = new CompletionTrieAutocomplete();
+        autocomplete.addAll(cities);
 
         Scanner stdin = new Scanner(System.in);
         System.out.print("Query: ");
@@ -39,11 +40,8 @@ public class CitySearch {
             if (prefix.isEmpty()) {
                 System.exit(0);
             }
-            List<CharSequence> matches = autocomplete.allMatches(prefix);
-            System.out.println(matches.size() + " matches");
-            matches.sort(Comparator.comparingInt(cities::get).reversed());
-            for (int i = 0; i < Math.min(matches.size(), MAX_MATCHES); i += 1) {
-                System.out.println(matches.get(i));
+            for (CharSequence match : autocomplete.topMatches(prefix, MAX_MATCHES)) {
+                System.out.println(match);
             }
             System.out.println();
             System.out.print("Query: ");
@@ -0,0 +1,177 @@
+import autocomplete.CompletionTrieAutocomplete;
+
+import java.util.*;
+
+/**
+ * Compare {@link CompletionTrieAutocomplete#fuzzyTopMatches(CharSequence, int, int)} against a brute-force scan that
+ * computes the prefix edit distance of every term, on random place-like names with misspelled queries. Optionally takes
+ * the number of names as the first argument; the default is large enough for some two-edit queries to reach the cap on
+ * the number of nodes a fuzzy search visits, which may shorten their results but must never reorder or replace them.
+ */
+public class FuzzySearchBenchmark {
+    /**
+     * Default number of names.
+     */
+    private static final int DEFAULT_SIZE = 500_000;
+    /**
+     * Number of random queries.
+     */
+    private static final int QUERIES = 200;
+    /**
+     * Number of matches requested per query.
+     */
+    private static final int K = 10;
+    /**
+     * Maximum number of edits allowed per query, which is also the number of edits made to each query.
+     */
+    private static final int MAX_EDITS = 2;
+    /**
+     * Consonants and vowels that names alternate between.
+     */
+    private static final String CONSONANTS = "bcdfghjklmnprstvwz";
+    private static final String VOWELS = "aeiouy";
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        Random random = new Random(373);
+        Map<String, Double> weights = new HashMap<>();
+        while (weights.size() < size) {
+            weights.put(name(random), (double) random.nextInt(1_000_000));
+        }
+        String[] names = weights.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        CompletionTrieAutocomplete autocomplete = new CompletionTrieAutocomplete();
+        autocomplete.addAll(weights);
+        System.out.println(names.length + " names");
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i += 1) {
+            String name = names[random.nextInt(names.length)];
+            queries[i] = misspell(name.substring(0, Math.min(name.length(), 4 + random.nextInt(5))), random);
+        }
+        long fuzzy = 0;
+        long bruteForce = 0;
+        int shortened = 0;
+        for (String query : queries) {
+            long start = System.nanoTime();
+            List<CharSequence> actual = autocomplete.fuzzyTopMatches(query, MAX_EDITS, K);
+            fuzzy += System.nanoTime() - start;
+            start = System.nanoTime();
+            List<String> expected = bruteForce(names, weights, query);
+            bruteForce += System.nanoTime() - start;
+            List<String> strings = new ArrayList<>();
+            for (CharSequence term : actual) {
+                strings.add(term.toString());
+            }
+            if (!strings.equals(expected.subList(0, Math.min(strings.size(), expected.size())))) {
+                throw new IllegalStateException("Match mismatch for " + query + ": " + strings + " vs " + expected);
+            } else if (strings.size() < expected.size()) {
+                shortened += 1;
+            }
+        }
+        System.out.println(shortened + " of " + QUERIES + " queries shortened by the cap");
+        System.out.printf("%-22s %8.3f ms/query%n", "Fuzzy trie search", fuzzy / 1e6 / QUERIES);
+        System.out.printf("%-22s %8.3f ms/query%n", "Brute force", bruteForce / 1e6 / QUERIES);
+    }
+
+    /**
+     * Returns a random capitalized name of 5 to 12 letters that alternate between consonants and vowels.
+     *
+     * @param random the source of randomness.
+     * @return a random name.
+     */
+    private static String name(Random random) {
+        StringBuilder result = new StringBuilder();
+        int length = 5 + random.nextInt(8);
+        boolean vowel = random.nextBoolean();
+        for (int i = 0; i < length; i += 1) {
+            String letters = vowel ? VOWELS : CONSONANTS;
+            result.append(letters.charAt(random.nextInt(letters.length())));
+            vowel = !vowel;
+        }
+        result.setCharAt(0, Character.toUpperCase(result.charAt(0)));
+        return result.toString();
+    }
+
+    /**
+     * Returns the given query with {@link #MAX_EDITS} random substitutions, insertions, or deletions.
+     *
+     * @param query  the query to misspell.
+     * @param random the source of randomness.
+     * @return the misspelled query.
+     */
+    private static String misspell(String query, Random random) {
+        StringBuilder result = new StringBuilder(query);
+        for (int i = 0; i < MAX_EDITS; i += 1) {
+            int index = random.nextInt(result.length());
+            char c = (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(3)) {
+                case 0 -> result.setCharAt(index, c);
+                case 1 -> result.insert(index, c);
+                default -> {
+                    if (result.length() > 1) {
+                        result.deleteCharAt(index);
+                    }
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the best {@link #K} names within {@link #MAX_EDITS} edits of some prefix of theirs, ordered by
+     * increasing number of edits, then by decreasing weight, and then by increasing name.
+     *
+     * @param names   the names to scan.
+     * @param weights the weight of each name.
+     * @param query   the misspelled prefix.
+     * @return the expected matches, best first.
+     */
+    private static List<String> bruteForce(String[] names, Map<String, Double> weights, String query) {
+        Map<String, Integer> edits = new HashMap<>();
+        for (String name : names) {
+            int distance = prefixDistance(query, name);
+            if (distance <= MAX_EDITS) {
+                edits.put(name, distance);
+            }
+        }
+        List<String> result = new ArrayList<>(edits.keySet());
+        result.sort(Comparator.comparing((String name) -> edits.get(name))
+                .thenComparing(name -> -weights.get(name))
+                .thenComparing(Comparator.naturalOrder()));
+        return result.subList(0, Math.min(K, result.size()));
+    }
+
+    /**
+     * Returns the smallest edit distance between the query and any prefix of the name, or a number greater than
+     * {@link #MAX_EDITS} if it exceeds that bound.
+     *
+     * @param query the misspelled prefix.
+     * @param name  the name to match.
+     * @return the prefix edit distance, capped just above the bound.
+     */
+    private static int prefixDistance(String query, String name) {
+        int n = query.length();
+        int[] row = new int[n + 1];
+        for (int j = 0; j <= n; j += 1) {
+            row[j] = j;
+        }
+        int best = row[n];
+        for (int i = 0; i < name.length() && best > 0; i += 1) {
+            int[] next = new int[n + 1];
+            next[0] = row[0] + 1;
+            int least = next[0];
+            for (int j = 1; j <= n; j += 1) {
+                int substitution = row[j - 1] + (query.charAt(j - 1) == name.charAt(i) ? 0 : 1);
+                next[j] = Math.min(substitution, Math.min(row[j], next[j - 1]) + 1);
+                least = Math.min(least, next[j]);
+            }
+            best = Math.min(best, next[n]);
+            if (least > MAX_EDITS) {
+                break;
+            }
+            row = next;
+        }
+        return Math.min(best, MAX_EDITS + 1);
+    }
+}
@@ -1,14 +1,27 @@
-import autocomplete.Autocomplete;
-import autocomplete.TreeSetAutocomplete;
+import autocomplete.CompletionTrieAutocomplete;
+import autocomplete.WeightedAutocomplete;
+import cache.LRUCache;
 import graphs.AStarGraph;
 import graphs.Edge;
-import graphs.shortestpaths.AStarSolver;
-import minpq.DoubleMapMinPQ;
+import graphs.IndexedGraph;
+import graphs.IntGraph;
+import graphs.Partition;
+import graphs.ProfiledGraph;
+import graphs.SpeedProfile;
+import graphs.TurnExpandedGraph;
+import graphs.TurnRestrictions;
+import graphs.shortestpaths.IntDijkstraSolver;
+import graphs.shortestpaths.IntOverlaySolver;
+import graphs.shortestpaths.IntTimeDependentSolver;
+import graphs.shortestpaths.MultiLevelOverlay;
+import graphs.shortestpaths.SearchWorkspace;
 import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.distance.DistanceUtils;
 import org.locationtech.spatial4j.shape.Point;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
+import server.Metrics;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -16,6 +29,16 @@ import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -25,13 +48,136 @@ import java.util.zip.GZIPInputStream;
  * @see MapServer
  */
 public class MapGraph implements AStarGraph<Point> {
+    /**
+     * Default maximum number of routes kept in the route cache.
+     */
+    private static final int DEFAULT_ROUTE_CACHE_SIZE = 1024;
+    /**
+     * Default number of milliseconds a cached route remains valid.
+     */
+    private static final long DEFAULT_ROUTE_CACHE_TTL_MILLIS = 10 * 60 * 1000;
+    /**
+     * Default maximum length of the prefixes whose top matches are precomputed at load time.
+     */
+    private static final int DEFAULT_PREFIX_TABLE_LENGTH = 3;
+    /**
+     * Default maximum number of longer prefixes whose top matches are kept in the prefix cache.
+     */
+    private static final int DEFAULT_PREFIX_CACHE_SIZE = 4096;
+    /**
+     * Number of top matches kept for each precomputed or cached prefix.
+     */
+    private static final int PREFIX_MATCHES = 10;
+    /**
+     * Shortest prefix that falls back to matching with one typo when no location name starts with it exactly.
+     */
+    private static final int FUZZY_ONE_EDIT_LENGTH = 4;
+    /**
+     * Shortest prefix that falls back to matching with two typos when no location name starts with it exactly.
+     */
+    private static final int FUZZY_TWO_EDIT_LENGTH = 8;
+    /**
+     * Maximum number of vertices in a cell at each level of the routing overlay, from the finest level up.
+     */
+    private static final int[] OVERLAY_CELL_SIZES = {256, 4096, 65536};
+    /**
+     * Allowed highway types, where the index of each type is the id of its speed profile.
+     */
+    private static final List<String> ROAD_CLASSES = List.of(
+            "motorway",
+            "trunk",
+            "primary",
+            "secondary",
+            "tertiary",
+            "unclassified",
+            "residential",
+            "living_street",
+            "motorway_link",
+            "trunk_link",
+            "primary_link",
+            "secondary_link",
+            "tertiary_link"
+    );
+    /**
+     * Highway types that are one-way unless tagged otherwise.
+     */
+    private static final Set<String> IMPLIED_ONEWAY = Set.of("motorway", "motorway_link");
+    /**
+     * Leading number and optional unit of an OSM maxspeed value such as "50", "30 mph", or "50;30".
+     */
+    private static final Pattern MAX_SPEED = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*(mph)?");
+    /**
+     * {@link SpeedProfile} of each allowed highway type, shared by every edge of that type.
+     */
+    private static final Map<String, SpeedProfile> SPEED_PROFILES = Map.ofEntries(
+            Map.entry("motorway", SpeedProfile.rushHour(metersPerSecond(105), 0.45)),
+            Map.entry("trunk", SpeedProfile.rushHour(metersPerSecond(90), 0.5)),
+            Map.entry("primary", SpeedProfile.rushHour(metersPerSecond(65), 0.55)),
+            Map.entry("secondary", SpeedProfile.rushHour(metersPerSecond(55), 0.6)),
+            Map.entry("tertiary", SpeedProfile.rushHour(metersPerSecond(45), 0.7)),
+            Map.entry("unclassified", SpeedProfile.constant(metersPerSecond(40))),
+            Map.entry("residential", SpeedProfile.constant(metersPerSecond(30))),
+            Map.entry("living_street", SpeedProfile.constant(metersPerSecond(10))),
+            Map.entry("motorway_link", SpeedProfile.rushHour(metersPerSecond(60), 0.5)),
+            Map.entry("trunk_link", SpeedProfile.rushHour(metersPerSecond(50), 0.55)),
+            Map.entry("primary_link", SpeedProfile.rushHour(metersPerSecond(45), 0.6)),
+            Map.entry("secondary_link", SpeedProfile.rushHour(metersPerSecond(40), 0.65)),
+            Map.entry("tertiary_link", SpeedProfile.rushHour(metersPerSecond(35), 0.7))
+    );
     private final String osmPath;
     private final String placesPath;
     private final SpatialContext context;
     private final Map<Point, List<Edge<Point>>> neighbors;
+    /**
+     * {@link IndexedGraph} copy of this graph as parsed, which numbers the vertices and edges for routing queries and
+     * keeps the original edge weights for reopening roads.
+     */
+    private final IndexedGraph<Point> graph;
+    /**
+     * {@link Snapshot} of the current edge weights. Each query reads it once, and updates replace it with a new copy.
+     */
+    private volatile Snapshot snapshot;
+    /**
+     * {@link SearchWorkspace.Pool} shared by concurrent routing queries on the {@link #graph}.
+     */
+    private final SearchWorkspace.Pool workspaces;
+    /**
+     * {@link TurnRestrictions} parsed from OSM restriction relations, indexed by the edges of the {@link #graph}.
+     */
+    private final TurnRestrictions turnRestrictions;
+    /**
+     * {@link SearchWorkspace.Pool} of workspaces sized for the graph of the overlay, which has a vertex for each edge
+     * and two for each vertex of the {@link #graph} when the map has turn restrictions.
+     */
+    private final SearchWorkspace.Pool overlayWorkspaces;
     private final Map<String, List<Point>> locations;
-    private final Autocomplete autocomplete;
-    private final Map<CharSequence, Integer> importance;
+    /**
+     * {@link WeightedAutocomplete} of location names weighted so that names with smaller importance values from the
+     * places data rank first.
+     */
+    private final WeightedAutocomplete autocomplete;
+    /**
+     * The maximum length of the prefixes in the {@link #prefixTable}.
+     */
+    private final int prefixTableLength;
+    /**
+     * The top {@link #PREFIX_MATCHES} location names by importance for every prefix of a location name up to
+     * {@link #prefixTableLength} characters long. Short prefixes match a large fraction of names, so ranking their
+     * matches on each request would dominate typing-speed traffic.
+     */
+    private final Map<String, List<CharSequence>> prefixTable;
+    /**
+     * {@link LRUCache} of the top {@link #PREFIX_MATCHES} location names by importance for longer prefixes.
+     */
+    private final LRUCache<String, List<CharSequence>> prefixCache;
+    /**
+     * {@link LRUCache} of shortest paths keyed by the pair of snapped start and goal vertices.
+     */
+    private final LRUCache<List<Point>, List<Point>> routeCache;
+    /**
+     * {@link Metrics} of the hot paths: snapping, route searches, and autocomplete.
+     */
+    private final Metrics metrics;
 
     /**
      * Constructs a new map graph from the path to an OSM GZ file and a places TSV.
@@ -44,43 +190,94 @@ public class MapGraph implements AStarGraph<Point> {
      */
     public MapGraph(String osmPath, String placesPath, SpatialContext context)
             throws ParserConfigurationException, SAXException, IOException {
+        this(osmPath, placesPath, context, DEFAULT_ROUTE_CACHE_SIZE, DEFAULT_ROUTE_CACHE_TTL_MILLIS);
+    }
+
+    /**
+     * Constructs a new map graph from the path to an OSM GZ file and a places TSV with a route cache of the given size
+     * and time-to-live.
+     *
+     * @param osmPath             The path to a gzipped OSM (XML) file.
+     * @param placesPath          The path to a TSV file representing places and importance.
+     * @param routeCacheSize      The maximum number of cached routes.
+     * @param routeCacheTtlMillis The number of milliseconds a cached route remains valid, or 0 to never expire.
+     * @throws ParserConfigurationException if a parser cannot be created.
+     * @throws SAXException                 for SAX errors.
+     * @throws IOException                  if a file is not found or if the file is not gzipped.
+     */
+    public MapGraph(String osmPath, String placesPath, SpatialContext context,
+                    int routeCacheSize, long routeCacheTtlMillis)
+            throws ParserConfigurationException, SAXException, IOException {
+        this(osmPath, placesPath, context, routeCacheSize, routeCacheTtlMillis, DEFAULT_PREFIX_TABLE_LENGTH,
+                DEFAULT_PREFIX_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a new map graph from the path to an OSM GZ file and a places TSV with a route cache of the given size
+     * and time-to-live, and with the top matches of every location-name prefix up to the given length precomputed.
+     *
+     * @param osmPath             The path to a gzipped OSM (XML) file.
+     * @param placesPath          The path to a TSV file representing places and importance.
+     * @param routeCacheSize      The maximum number of cached routes.
+     * @param routeCacheTtlMillis The number of milliseconds a cached route remains valid, or 0 to never expire.
+     * @param prefixTableLength   The maximum length of the prefixes whose top matches are precomputed.
+     * @param prefixCacheSize     The maximum number of longer prefixes whose top matches are cached.
+     * @throws ParserConfigurationException if a parser cannot be created.
+     * @throws SAXException                 for SAX errors.
+     * @throws IOException                  if a file is not found or if the file is not gzipped.
+     */
+    public MapGraph(String osmPath, String placesPath, SpatialContext context,
+                    int routeCacheSize, long routeCacheTtlMillis, int prefixTableLength, int prefixCacheSize)
+            throws ParserConfigurationException, SAXException, IOException {
         this.osmPath = osmPath;
         this.placesPath = placesPath;
         this.context = context;
+        this.routeCache = new LRUCache<>(routeCacheSize, routeCacheTtlMillis);
+        this.metrics = new Metrics();
+        this.prefixTableLength = prefixTableLength;
+        this.prefixCache = new LRUCache<>(prefixCacheSize);
+        metrics.cache("routes", routeCache);
+        metrics.cache("prefixes", prefixCache);
 
         // Parse the OpenStreetMap (OSM) data using the SAXParser XML tree walker.
         neighbors = new HashMap<>();
-        Handler handler = new Handler(Set.of(
-                "motorway",
-                "trunk",
-                "primary",
-                "secondary",
-                "tertiary",
-                "unclassified",
-                "residential",
-                "living_street",
-                "motorway_link",
-                "trunk_link",
-                "primary_link",
-                "secondary_link",
-                "tertiary_link"
-        ));
+        Handler handler = new Handler(Set.copyOf(ROAD_CLASSES));
         SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
         saxParser.parse(new GZIPInputStream(fileStream(osmPath)), handler);
-
-        // Add reachable locations to the Autocomplete engine.
-        locations = handler.byName;
-        autocomplete = new TreeSetAutocomplete();
-        autocomplete.addAll(locations.keySet());
+        // Number the vertices along a Hilbert curve so that nearby places are nearby in memory.
+        IndexedGraph<Point> parsed = new IndexedGraph<>(this, neighbors.keySet());
+        graph = parsed.reordered(IndexedGraph.hilbertOrder(longitudes(parsed), latitudes(parsed)));
+        workspaces = new SearchWorkspace.Pool(graph.size());
+        turnRestrictions = turnRestrictions(graph, handler.restrictions);
+        // Overlay cliques must obey turn restrictions too, so restricted maps are partitioned as turn-expanded graphs.
+        TurnExpandedGraph turns = turnRestrictions.isEmpty() ? null : new TurnExpandedGraph(graph, turnRestrictions);
+        IntGraph routing = turns == null ? graph : turns;
+        overlayWorkspaces = new SearchWorkspace.Pool(routing.size());
+        Partition partition = new Partition(routing, locate(turns, longitudes(graph)), locate(turns, latitudes(graph)),
+                OVERLAY_CELL_SIZES);
+        snapshot = new Snapshot(0, graph, new ProfiledGraph(graph, profileIds(graph),
+                handler.profiles.toArray(new SpeedProfile[0]), toMeters(1)), turns,
+                new MultiLevelOverlay(routing, partition));
 
         // Parse the place-importance data.
-        importance = new HashMap<>();
+        Map<String, Integer> importance = new HashMap<>();
         try (Scanner input = new Scanner(fileStream(placesPath))) {
             while (input.hasNextLine()) {
                 Scanner line = new Scanner(input.nextLine()).useDelimiter("\t");
                 importance.put(line.next(), line.nextInt());
             }
         }
+
+        // Add reachable locations to the Autocomplete engine, ranked by increasing importance value and with names
+        // missing from the places data last.
+        locations = handler.byName;
+        Map<String, Double> weights = new HashMap<>(locations.size());
+        for (String name : locations.keySet()) {
+            weights.put(name, -(double) importance.getOrDefault(name, Integer.MAX_VALUE));
+        }
+        autocomplete = new CompletionTrieAutocomplete();
+        autocomplete.addAll(weights);
+        prefixTable = prefixTable(locations.keySet(), prefixTableLength);
     }
 
     /**
@@ -103,23 +300,72 @@ public class MapGraph implements AStarGraph<Point> {
         if (neighbors.containsKey(target)) {
             return target;
         }
-        return Collections.min(neighbors.keySet(),
-                Comparator.comparingDouble(p -> estimatedDistance(target, p)));
+        return metrics.time("husky_snap_seconds", () -> Collections.min(neighbors.keySet(),
+                Comparator.comparingDouble(p -> estimatedDistance(target, p))));
     }
 
     /**
-     * Return the names of all locations that prefix-match the query string.
+     * Return the names of the most important locations that prefix-match the query string. Short prefixes are answered
+     * from a table precomputed at load time and longer prefixes from a cache, unless more matches are requested than
+     * either keeps. Longer prefixes that no name starts with are matched with typos allowed.
      *
      * @param prefix prefix string that could be any case with or without punctuation.
      * @return a list of full names of locations matching the prefix.
      */
     public List<CharSequence> getLocationsByPrefix(String prefix, int maxMatches) {
-        List<CharSequence> matches = autocomplete.allMatches(prefix);
-        Map<CharSequence, Double> elementsAndPriorities = new HashMap<>(matches.size());
-        for (CharSequence match : matches) {
-            elementsAndPriorities.put(match, (double) importance.get(match));
+        if (prefix == null || prefix.isEmpty()) {
+            return List.of();
         }
-        return new DoubleMapMinPQ<>(elementsAndPriorities).removeMin(maxMatches);
+        if (maxMatches > PREFIX_MATCHES) {
+            return rankedMatches(prefix, maxMatches);
+        }
+        List<CharSequence> top;
+        if (prefix.length() <= prefixTableLength) {
+            top = prefixTable.getOrDefault(prefix, List.of());
+        } else {
+            top = prefixCache.computeIfAbsent(prefix, (p) -> rankedMatches(p, PREFIX_MATCHES));
+        }
+        return top.subList(0, Math.min(maxMatches, top.size()));
+    }
+
+    /**
+     * Returns the names of the most important locations that prefix-match the query string from the weighted
+     * autocomplete engine, which only visits the part of the trie that can hold the top matches. If no name starts
+     * with a long enough prefix, the names that start within one or two typos of it are returned instead, so that a
+     * misspelled query still finds its location.
+     *
+     * @param prefix     the prefix to match.
+     * @param maxMatches the maximum number of names to return.
+     * @return a list of the most important names matching the prefix, most important first.
+     */
+    private List<CharSequence> rankedMatches(String prefix, int maxMatches) {
+        return metrics.time("husky_autocomplete_seconds", () -> {
+            List<CharSequence> result = autocomplete.topMatches(prefix, maxMatches);
+            if (result.isEmpty() && prefix.length() >= FUZZY_ONE_EDIT_LENGTH) {
+                metrics.counter("husky_autocomplete_fuzzy_total").increment();
+                int maxEdits = prefix.length() >= FUZZY_TWO_EDIT_LENGTH ? 2 : 1;
+                result = autocomplete.fuzzyTopMatches(prefix, maxEdits, maxMatches);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Returns the top matches for every distinct prefix of every name up to the given length.
+     *
+     * @param names     the location names.
+     * @param maxLength the maximum length of the prefixes.
+     * @return the map from each prefix to its most important names, most important first.
+     */
+    private Map<String, List<CharSequence>> prefixTable(Collection<String> names, int maxLength) {
+        Map<String, List<CharSequence>> result = new HashMap<>();
+        for (String name : names) {
+            for (int length = 1; length <= Math.min(maxLength, name.length()); length += 1) {
+                result.computeIfAbsent(name.substring(0, length),
+                        (prefix) -> List.copyOf(autocomplete.topMatches(prefix, PREFIX_MATCHES)));
+            }
+        }
+        return result;
     }
 
     /**
@@ -133,19 +379,437 @@ public class MapGraph implements AStarGraph<Point> {
     }
 
     /**
-     * Returns a list of points representing the shortest path from the points closest to the start and goal.
+     * Returns a list of points representing the shortest path from the points closest to the start and goal that obeys
+     * one-way streets and turn restrictions, searched on the multi-level overlay. Paths are cached by their snapped
+     * endpoints, so nearby requests that snap to the same vertices share one search.
      *
      * @param start the {@link Point} to start the shortest path.
      * @param goal  the {@link Point} to end the shortest path.
      * @return a list of points representing the shortest path from the points closest to the start and goal.
      */
     public List<Point> shortestPath(Point start, Point goal) {
-        return new AStarSolver<>(this, closest(start), closest(goal)).solution();
+        List<Point> key = List.of(closest(start), closest(goal));
+        return routeCache.computeIfAbsent(key, (k) -> metrics.time("husky_route_search_seconds", () -> {
+            Snapshot current = snapshot;
+            int s = graph.id(k.get(0));
+            int t = graph.id(k.get(1));
+            metrics.counter("husky_route_searches_total").increment();
+            SearchWorkspace workspace = overlayWorkspaces.acquire();
+            try {
+                IntOverlaySolver solver = new IntOverlaySolver(current.overlay, current.source(s), current.target(t),
+                        workspace);
+                metrics.histogram("husky_route_settled_vertices").record(solver.settledCount());
+                return List.copyOf(graph.vertices(current.route(solver.solution())));
+            } finally {
+                overlayWorkspaces.release(workspace);
+            }
+        }));
+    }
+
+    /**
+     * Returns the id of the route between the points closest to the start and goal. The id names the snapped vertices,
+     * so it can be resolved by {@link #route(String)} without snapping again, and it stays the same across restarts
+     * for the same OSM file.
+     *
+     * @param start the {@link Point} to start the route.
+     * @param goal  the {@link Point} to end the route.
+     * @return the id of the route.
+     */
+    public String routeId(Point start, Point goal) {
+        int s = graph.id(closest(start));
+        int t = graph.id(closest(goal));
+        return Integer.toString(s, Character.MAX_RADIX) + "." + Integer.toString(t, Character.MAX_RADIX);
+    }
+
+    /**
+     * Returns the shortest path for the given route id, which is served from the route cache if the route was
+     * requested recently.
+     *
+     * @param routeId the id returned by {@link #routeId(Point, Point)}.
+     * @return a list of points representing the shortest path.
+     * @throws IllegalArgumentException if the route id is malformed or names an unknown vertex.
+     */
+    public List<Point> route(String routeId) {
+        String[] ids = routeId.split("\\.");
+        if (ids.length != 2) {
+            throw new IllegalArgumentException("Malformed route id: " + routeId);
+        }
+        int s = Integer.parseInt(ids[0], Character.MAX_RADIX);
+        int t = Integer.parseInt(ids[1], Character.MAX_RADIX);
+        if (s < 0 || s >= graph.size() || t < 0 || t >= graph.size()) {
+            throw new IllegalArgumentException("Unknown route id: " + routeId);
+        }
+        return shortestPath(graph.vertex(s), graph.vertex(t));
+    }
+
+    /**
+     * Returns the length of the path in meters.
+     *
+     * @param path a list of points.
+     * @return the length of the path in meters.
+     */
+    public double length(List<Point> path) {
+        double degrees = 0;
+        for (int i = 1; i < path.size(); i += 1) {
+            degrees += estimatedDistance(path.get(i - 1), path.get(i));
+        }
+        return toMeters(degrees);
+    }
+
+    /**
+     * Returns the endpoints of every road segment for drawing the road network, with each two-way road listed once.
+     *
+     * @return the endpoints of each road segment as lon1, lat1, lon2, lat2.
+     */
+    public double[] roadSegments() {
+        double[] result = new double[4 * graph.edgeCount()];
+        int size = 0;
+        for (int u = 0; u < graph.size(); u += 1) {
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e += 1) {
+                int v = graph.to(e);
+                if (u < v || edgesBetween(graph.vertex(v), graph.vertex(u)).length == 0) {
+                    Point from = graph.vertex(u);
+                    Point to = graph.vertex(v);
+                    result[size] = from.getLon();
+                    result[size + 1] = from.getLat();
+                    result[size + 2] = to.getLon();
+                    result[size + 3] = to.getLat();
+                    size += 4;
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Returns a list of points representing the fastest path from the points closest to the start and goal when leaving
+     * at the given time of day, following the rush-hour speed profile of each road class.
+     *
+     * @param start     the {@link Point} to start the fastest path.
+     * @param goal      the {@link Point} to end the fastest path.
+     * @param departure the departure time in seconds since midnight.
+     * @return a list of points representing the fastest path from the points closest to the start and goal.
+     */
+    public List<Point> fastestPath(Point start, Point goal, double departure) {
+        return fastest(start, goal, departure, solver -> graph.vertices(solver.solution()));
+    }
+
+    /**
+     * Returns the travel time in seconds along the fastest path from the points closest to the start and goal when
+     * leaving at the given time of day, or infinity if the goal is unreachable.
+     *
+     * @param start     the {@link Point} to start from.
+     * @param goal      the {@link Point} to end at.
+     * @param departure the departure time in seconds since midnight.
+     * @return the travel time in seconds.
+     */
+    public double travelTime(Point start, Point goal, double departure) {
+        return fastest(start, goal, departure, IntTimeDependentSolver::travelTime);
+    }
+
+    /**
+     * Runs a time-dependent search between the points closest to the start and goal in a pooled workspace and returns
+     * the given result, which must be read before the workspace is released.
+     *
+     * @param start     the {@link Point} to start from.
+     * @param goal      the {@link Point} to end at.
+     * @param departure the departure time in seconds since midnight.
+     * @param result    the function reading the result from the solver.
+     * @param <T>       the type of the result.
+     * @return the result of the search.
+     */
+    private <T> T fastest(Point start, Point goal, double departure, Function<IntTimeDependentSolver, T> result) {
+        SearchWorkspace workspace = workspaces.acquire();
+        try {
+            return result.apply(new IntTimeDependentSolver(snapshot.travelTimes, graph.id(closest(start)),
+                    graph.id(closest(goal)), departure, workspace));
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    /**
+     * Returns the matrix of shortest-path distances in meters from each of the sources to each of the targets. Each
+     * row is computed by a single Dijkstra search from the snapped source that stops once every snapped target has been
+     * settled, and rows are computed in parallel on the given executor. Unreachable targets have infinite distance.
+     *
+     * @param sources  the {@link Point} locations to start from.
+     * @param targets  the {@link Point} locations to end at.
+     * @param executor the executor on which to compute the rows, such as a bounded pool.
+     * @return a sources.size() by targets.size() matrix of shortest-path distances in meters.
+     */
+    public double[][] distanceTable(List<Point> sources, List<Point> targets, Executor executor) {
+        int[] snappedSources = sources.stream().mapToInt(p -> graph.id(closest(p))).toArray();
+        int[] snappedTargets = targets.stream().mapToInt(p -> graph.id(closest(p))).toArray();
+        double[][] result = new double[sources.size()][targets.size()];
+        IndexedGraph<Point> current = snapshot.graph;
+        parallelFor(sources.size(), executor, i -> {
+            SearchWorkspace workspace = workspaces.acquire();
+            try {
+                IntDijkstraSolver solver = new IntDijkstraSolver(current, snappedSources[i], snappedTargets,
+                        Double.POSITIVE_INFINITY, workspace);
+                for (int j = 0; j < snappedTargets.length; j += 1) {
+                    result[i][j] = toMeters(solver.distTo(snappedTargets[j]));
+                }
+            } finally {
+                workspaces.release(workspace);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Computes the shortest path between each pair of start and goal that obeys one-way streets and turn restrictions.
+     * Pairs are grouped by snapped start so that a single Dijkstra search on the graph of the overlay serves every goal
+     * of the group, stopping once all of them have been settled, and groups are evaluated in parallel on the given
+     * executor. Each path is passed to the consumer as soon as its group finishes, so the consumer may be called
+     * concurrently and in any order. Batch paths bypass the route cache, so they cannot evict interactive routes.
+     *
+     * @param starts   the {@link Point} locations to start from.
+     * @param goals    the {@link Point} locations to end at, one for each start.
+     * @param executor the executor on which to evaluate the groups, such as a bounded pool.
+     * @param results  the consumer of the index of each pair and its path, which is empty if the goal is unreachable.
+     * @throws IllegalArgumentException if there are not as many goals as starts.
+     */
+    public void shortestPaths(List<Point> starts, List<Point> goals, Executor executor,
+                              BiConsumer<Integer, List<Point>> results) {
+        if (starts.size() != goals.size()) {
+            throw new IllegalArgumentException("Expected one goal for each of " + starts.size() + " starts");
+        }
+        int[] snappedStarts = starts.stream().mapToInt(p -> graph.id(closest(p))).toArray();
+        int[] snappedGoals = goals.stream().mapToInt(p -> graph.id(closest(p))).toArray();
+        Map<Integer, List<Integer>> bySource = new HashMap<>();
+        for (int i = 0; i < snappedStarts.length; i += 1) {
+            bySource.computeIfAbsent(snappedStarts[i], (k) -> new ArrayList<>()).add(i);
+        }
+        List<Map.Entry<Integer, List<Integer>>> groups = new ArrayList<>(bySource.entrySet());
+        Snapshot current = snapshot;
+        parallelFor(groups.size(), executor, g -> {
+            int source = groups.get(g).getKey();
+            List<Integer> pairs = groups.get(g).getValue();
+            int[] targets = pairs.stream().mapToInt(i -> current.target(snappedGoals[i])).toArray();
+            SearchWorkspace workspace = overlayWorkspaces.acquire();
+            try {
+                IntDijkstraSolver solver = new IntDijkstraSolver(current.overlay.graph(), current.source(source),
+                        targets, Double.POSITIVE_INFINITY, workspace);
+                for (int j = 0; j < targets.length; j += 1) {
+                    boolean reached = solver.distTo(targets[j]) < Double.POSITIVE_INFINITY;
+                    // Each path is read from the workspace in time proportional to its length.
+                    List<Point> path = reached
+                            ? List.copyOf(graph.vertices(current.route(solver.solution(targets[j]))))
+                            : List.of();
+                    results.accept(pairs.get(j), path);
+                }
+            } finally {
+                overlayWorkspaces.release(workspace);
+            }
+        });
+    }
+
+    /**
+     * Runs the task for each index from 0 up to but not including the count on the executor and waits for all of
+     * them to finish.
+     *
+     * @param count    the number of indices.
+     * @param executor the executor on which to run the tasks.
+     * @param task     the task to run for each index.
+     * @throws RuntimeException the exception thrown by a failed task.
+     */
+    private static void parallelFor(int count, Executor executor, IntConsumer task) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i += 1) {
+            int index = i;
+            futures[i] = CompletableFuture.runAsync(() -> task.accept(index), executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns all locations whose shortest-path distance from the point closest to the center is at most the given
+     * number of meters, in order of increasing distance. The search stops at the budget rather than exploring the
+     * whole connected component.
+     *
+     * @param center the {@link Point} to start from.
+     * @param meters the distance budget in meters.
+     * @return the locations reachable within the budget.
+     */
+    public List<Point> reachable(Point center, double meters) {
+        SearchWorkspace workspace = workspaces.acquire();
+        try {
+            IntDijkstraSolver solver = new IntDijkstraSolver(snapshot.graph, graph.id(closest(center)), null,
+                    toDegrees(meters), workspace);
+            return graph.vertices(solver.settled());
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    /**
+     * Closes the road between the two points in both directions, so that no route uses it until it is reopened.
+     *
+     * @param a one end of the road.
+     * @param b the other end of the road.
+     * @return the version of the graph after the update.
+     * @throws IllegalArgumentException if there is no road between the points.
+     */
+    public synchronized long closeRoad(Point a, Point b) {
+        double[] weights = snapshot.graph.weights();
+        for (int e : roads(a, b)) {
+            weights[e] = Double.POSITIVE_INFINITY;
+        }
+        return update(weights);
+    }
+
+    /**
+     * Reopens the road between the two points in both directions with the lengths it had when the map was loaded.
+     *
+     * @param a one end of the road.
+     * @param b the other end of the road.
+     * @return the version of the graph after the update.
+     * @throws IllegalArgumentException if there is no road between the points.
+     */
+    public synchronized long reopenRoad(Point a, Point b) {
+        double[] weights = snapshot.graph.weights();
+        for (int e : roads(a, b)) {
+            weights[e] = graph.weight(e);
+        }
+        return update(weights);
+    }
+
+    /**
+     * Sets the weight of the road from one point to the other, in that direction only, such as to reflect congestion.
+     * Weights below the straight-line length of the road are raised to that length: searches estimate the remaining
+     * distance by straight-line distance, so a shorter weight would let them return routes that are not shortest.
+     *
+     * @param from   the start of the road.
+     * @param to     the end of the road.
+     * @param meters the new nonnegative weight in meters, or infinity to close the road in this direction.
+     * @return the version of the graph after the update.
+     * @throws IllegalArgumentException if there is no road from one point to the other or the weight is negative.
+     */
+    public synchronized long setWeight(Point from, Point to, double meters) {
+        if (!(meters >= 0)) {
+            throw new IllegalArgumentException("Weights must be nonnegative: " + meters);
+        }
+        double[] weights = snapshot.graph.weights();
+        for (int e : edges(from, to)) {
+            // The weights of the graph as parsed are the straight-line lengths of the roads.
+            weights[e] = Math.max(toDegrees(meters), graph.weight(e));
+        }
+        return update(weights);
+    }
+
+    /**
+     * Returns the version of the graph, which starts at 0 and increases with each update.
+     *
+     * @return the version of the graph.
+     */
+    public long version() {
+        return snapshot.version;
+    }
+
+    /**
+     * Publishes a new snapshot with the given edge weights, recustomizes the overlay cells with changed edges, and
+     * invalidates the routes cached from older snapshots. Queries already running keep the snapshot they started with.
+     *
+     * @param weights the new weight of each edge.
+     * @return the version of the new snapshot.
+     */
+    private long update(double[] weights) {
+        Snapshot current = snapshot;
+        IndexedGraph<Point> updated = graph.withWeights(weights);
+        int[] changed = IntStream.range(0, weights.length)
+                .filter(e -> Double.compare(weights[e], current.graph.weight(e)) != 0)
+                .toArray();
+        TurnExpandedGraph turns = current.turns == null ? null : current.turns.withGraph(updated);
+        MultiLevelOverlay overlay = turns == null
+                ? current.overlay.customize(updated, changed)
+                : current.overlay.customize(turns, turns.arcs(changed));
+        snapshot = new Snapshot(current.version + 1, updated, current.travelTimes.withGraph(updated), turns, overlay);
+        routeCache.clear();
+        return current.version + 1;
+    }
+
+    /**
+     * Returns the ids of the edges between the two points in either direction.
+     *
+     * @param a one end of the road.
+     * @param b the other end of the road.
+     * @return the ids of the edges between the points.
+     * @throws IllegalArgumentException if there is no edge between the points.
+     */
+    private int[] roads(Point a, Point b) {
+        int[] forward = edgesBetween(a, b);
+        int[] backward = edgesBetween(b, a);
+        if (forward.length + backward.length == 0) {
+            throw new IllegalArgumentException("No road between " + a + " and " + b);
+        }
+        int[] result = Arrays.copyOf(forward, forward.length + backward.length);
+        System.arraycopy(backward, 0, result, forward.length, backward.length);
+        return result;
+    }
+
+    /**
+     * Returns the ids of the edges from one point to the other.
+     *
+     * @param from the start of the road.
+     * @param to   the end of the road.
+     * @return the ids of the edges from one point to the other.
+     * @throws IllegalArgumentException if there is no such edge.
+     */
+    private int[] edges(Point from, Point to) {
+        int[] result = edgesBetween(from, to);
+        if (result.length == 0) {
+            throw new IllegalArgumentException("No road from " + from + " to " + to);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the edges from one point to the other, which may be empty.
+     *
+     * @param from the start of the road.
+     * @param to   the end of the road.
+     * @return the ids of the edges from one point to the other.
+     */
+    private int[] edgesBetween(Point from, Point to) {
+        int u = graph.id(from);
+        int v = graph.id(to);
+        if (u == -1 || v == -1) {
+            return new int[0];
+        }
+        return IntStream.range(graph.edgeStart(u), graph.edgeEnd(u)).filter(e -> graph.to(e) == v).toArray();
+    }
+
+    /**
+     * Returns the cache of shortest paths for reporting its size, hits, and misses.
+     *
+     * @return the cache of shortest paths.
+     */
+    public LRUCache<List<Point>, List<Point>> routeCache() {
+        return routeCache;
+    }
+
+    /**
+     * Returns the metrics of snapping, route searches, and autocomplete, to which callers may add their own.
+     *
+     * @return the metrics of this graph.
+     */
+    public Metrics metrics() {
+        return metrics;
     }
 
     @Override
     public List<Edge<Point>> neighbors(Point point) {
-        return neighbors.computeIfAbsent(point, (p) -> List.of());
+        // Avoid computeIfAbsent: searches run concurrently, so lookups must not modify the map.
+        return neighbors.getOrDefault(point, List.of());
     }
 
     @Override
@@ -153,6 +817,54 @@ public class MapGraph implements AStarGraph<Point> {
         return context.calcDistance(start, end);
     }
 
+    /**
+     * Converts a distance in degrees, the unit of {@link #estimatedDistance(Point, Point)}, to meters.
+     *
+     * @param degrees the distance in degrees.
+     * @return the distance in meters.
+     */
+    private static double toMeters(double degrees) {
+        return DistanceUtils.degrees2Dist(degrees, DistanceUtils.EARTH_MEAN_RADIUS_KM) * 1000;
+    }
+
+    /**
+     * Converts a speed in kilometers per hour to meters per second.
+     *
+     * @param kph the speed in kilometers per hour.
+     * @return the speed in meters per second.
+     */
+    private static double metersPerSecond(double kph) {
+        return kph * 1000 / (60 * 60);
+    }
+
+    /**
+     * Returns the speed limit in kilometers per hour of an OSM maxspeed value, or -1 if it is not numeric.
+     *
+     * @param value the maxspeed value, such as "50" or "30 mph".
+     * @return the speed limit in kilometers per hour, or -1.
+     */
+    private static int kilometersPerHour(String value) {
+        Matcher m = MAX_SPEED.matcher(value.strip());
+        if (!m.lookingAt()) {
+            return -1;
+        }
+        double speed = Double.parseDouble(m.group(1));
+        if (m.group(2) != null) {
+            speed *= 1.609344;
+        }
+        return speed > 0 ? (int) Math.round(speed) : -1;
+    }
+
+    /**
+     * Converts a distance in meters to degrees, the unit of {@link #estimatedDistance(Point, Point)}.
+     *
+     * @param meters the distance in meters.
+     * @return the distance in degrees.
+     */
+    private static double toDegrees(double meters) {
+        return DistanceUtils.dist2Degrees(meters / 1000, DistanceUtils.EARTH_MEAN_RADIUS_KM);
+    }
+
     @Override
     public String toString() {
         return "MapGraph{" +
@@ -165,14 +877,228 @@ public class MapGraph implements AStarGraph<Point> {
     /**
      * Adds an edge to this graph if it doesn't already exist using distance as the weight.
      *
-     * @param from the originating point of the edge.
-     * @param to the terminating point of the edge.
+     * @param from    the originating point of the edge.
+     * @param to      the terminating point of the edge.
+     * @param profile the id of the speed profile of the edge.
      */
-    private void addEdge(Point from, Point to) {
+    private void addEdge(Point from, Point to, byte profile) {
         if (!neighbors.containsKey(from)) {
             neighbors.put(from, new ArrayList<>());
         }
-        neighbors.get(from).add(new Edge<>(from, to, estimatedDistance(from, to)));
+        neighbors.get(from).add(new Road(from, to, estimatedDistance(from, to), profile));
+    }
+
+    /**
+     * Returns the longitude of each vertex in the indexed graph.
+     *
+     * @param graph the indexed copy of this graph.
+     * @return the longitude of each vertex, indexed by id.
+     */
+    private static double[] longitudes(IndexedGraph<Point> graph) {
+        return graph.vertices().stream().mapToDouble(Point::getLon).toArray();
+    }
+
+    /**
+     * Returns the latitude of each vertex in the indexed graph.
+     *
+     * @param graph the indexed copy of this graph.
+     * @return the latitude of each vertex, indexed by id.
+     */
+    private static double[] latitudes(IndexedGraph<Point> graph) {
+        return graph.vertices().stream().mapToDouble(Point::getLat).toArray();
+    }
+
+    /**
+     * Returns the coordinate of each vertex of the turn-expanded graph, which is the coordinate of its location.
+     *
+     * @param turns       the turn-expanded graph, or null if the map has no turn restrictions.
+     * @param coordinates the coordinate of each vertex of the indexed graph.
+     * @return the coordinate of each vertex of the turn-expanded graph, or the given coordinates if it is null.
+     */
+    private static double[] locate(TurnExpandedGraph turns, double[] coordinates) {
+        if (turns == null) {
+            return coordinates;
+        }
+        double[] result = new double[turns.size()];
+        for (int v = 0; v < result.length; v += 1) {
+            result[v] = coordinates[turns.location(v)];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the speed profile id of each edge in the indexed graph. The indexed graph copies each vertex's neighbors
+     * in list order, so the edges of vertex v line up with {@link #neighbors(Point)} starting at its edge start.
+     *
+     * @param graph the indexed copy of this graph.
+     * @return the speed profile id of each edge in the indexed graph.
+     */
+    private byte[] profileIds(IndexedGraph<Point> graph) {
+        byte[] result = new byte[graph.edgeCount()];
+        for (int v = 0; v < graph.size(); v += 1) {
+            List<Edge<Point>> edges = neighbors(graph.vertex(v));
+            for (int i = 0; i < edges.size(); i += 1) {
+                result[graph.edgeStart(v) + i] = ((Road) edges.get(i)).profile;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the table of forbidden turns in the indexed graph for the given restrictions. A prohibitory restriction
+     * forbids turning from its from-way onto its to-way at the via node, and a mandatory restriction forbids every
+     * other turn from its from-way at the via node.
+     *
+     * @param graph        the indexed copy of this graph.
+     * @param restrictions the restrictions parsed from the OSM file.
+     * @return the table of forbidden turns in the indexed graph.
+     */
+    private static TurnRestrictions turnRestrictions(IndexedGraph<Point> graph, List<Restriction> restrictions) {
+        LongStream.Builder turns = LongStream.builder();
+        for (Restriction r : restrictions) {
+            int via = graph.id(r.via);
+            if (via == -1) {
+                continue;
+            }
+            for (Point fromPoint : r.from) {
+                int from = graph.id(fromPoint);
+                if (from == -1) {
+                    continue;
+                }
+                for (int in = graph.edgeStart(from); in < graph.edgeEnd(from); in += 1) {
+                    if (graph.to(in) != via) {
+                        continue;
+                    }
+                    for (int out = graph.edgeStart(via); out < graph.edgeEnd(via); out += 1) {
+                        if (r.to.contains(graph.vertex(graph.to(out))) != r.only) {
+                            turns.add(TurnRestrictions.turn(in, out));
+                        }
+                    }
+                }
+            }
+        }
+        return new TurnRestrictions(turns.build().toArray());
+    }
+
+    /**
+     * Immutable version of the edge weights used by routing queries. Every snapshot shares the vertices and edges of
+     * the parsed graph, so vertex and edge ids are the same across versions.
+     */
+    private static class Snapshot {
+        private final long version;
+        private final IndexedGraph<Point> graph;
+        /**
+         * {@link ProfiledGraph} view of the {@link #graph} with the speed profile of each edge.
+         */
+        private final ProfiledGraph travelTimes;
+        /**
+         * {@link TurnExpandedGraph} of the {@link #graph}, or null if the map has no turn restrictions.
+         */
+        private final TurnExpandedGraph turns;
+        /**
+         * {@link MultiLevelOverlay} of the {@link #turns}, or of the {@link #graph} if there are no turn restrictions,
+         * customized for the current edge weights.
+         */
+        private final MultiLevelOverlay overlay;
+
+        /**
+         * Constructs a snapshot of the given version.
+         *
+         * @param version     the version number.
+         * @param graph       the graph with the current edge weights.
+         * @param travelTimes the time-dependent view of the graph.
+         * @param turns       the turn-expanded view of the graph, or null.
+         * @param overlay     the overlay customized for the graph.
+         */
+        Snapshot(long version, IndexedGraph<Point> graph, ProfiledGraph travelTimes, TurnExpandedGraph turns,
+                 MultiLevelOverlay overlay) {
+            this.version = version;
+            this.graph = graph;
+            this.travelTimes = travelTimes;
+            this.turns = turns;
+            this.overlay = overlay;
+        }
+
+        /**
+         * Returns the vertex of the overlay's graph where routes from the given vertex start.
+         *
+         * @param vertex the vertex of the {@link #graph}.
+         * @return the start vertex in the overlay's graph.
+         */
+        int source(int vertex) {
+            return turns == null ? vertex : turns.departure(vertex);
+        }
+
+        /**
+         * Returns the vertex of the overlay's graph where routes to the given vertex end.
+         *
+         * @param vertex the vertex of the {@link #graph}.
+         * @return the goal vertex in the overlay's graph.
+         */
+        int target(int vertex) {
+            return turns == null ? vertex : turns.arrival(vertex);
+        }
+
+        /**
+         * Returns the vertices of the {@link #graph} along a path in the overlay's graph.
+         *
+         * @param path the path from a {@link #source(int)} to a {@link #target(int)}.
+         * @return the vertices of the route in the {@link #graph}.
+         */
+        int[] route(int[] path) {
+            return turns == null ? path : turns.route(path);
+        }
+    }
+
+    /**
+     * Turn restriction at a via node between the nodes next to it along the from-way and the to-way.
+     */
+    private static class Restriction {
+        private final List<Point> from;
+        private final Point via;
+        private final List<Point> to;
+        /**
+         * True for mandatory (only_*) restrictions and false for prohibitory (no_*) restrictions.
+         */
+        private final boolean only;
+
+        /**
+         * Constructs a restriction at the via node.
+         *
+         * @param from the nodes next to the via node along the from-ways.
+         * @param via  the via node.
+         * @param to   the nodes next to the via node along the to-ways.
+         * @param only true for mandatory restrictions and false for prohibitory restrictions.
+         */
+        Restriction(List<Point> from, Point via, List<Point> to, boolean only) {
+            this.from = from;
+            this.via = via;
+            this.to = to;
+            this.only = only;
+        }
+    }
+
+    /**
+     * {@link Edge} along a road that remembers the speed profile of its road class.
+     */
+    private static class Road extends Edge<Point> {
+        /**
+         * The id of the speed profile of this road, an index into the profiles of the {@link Handler}.
+         */
+        private final byte profile;
+
+        /**
+         * Constructs a road edge from and to the given points with the given length and speed profile.
+         *
+         * @param from    the originating point.
+         * @param to      the terminating point.
+         * @param weight  the length of the edge.
+         * @param profile the id of the speed profile.
+         */
+        Road(Point from, Point to, double weight, byte profile) {
+            super(from, to, weight);
+            this.profile = profile;
+        }
     }
 
     /**
@@ -182,17 +1108,46 @@ public class MapGraph implements AStarGraph<Point> {
         private final Set<String> allowedHighwayTypes;
         private final Map<Long, Point> byId;
         private final Map<String, List<Point>> byName;
+        /**
+         * The nodes of each accepted way by way id, used to resolve turn restrictions.
+         */
+        private final Map<Long, List<Point>> byWay;
+        /**
+         * The speed profiles indexed by id: one per road class in the order of {@link #ROAD_CLASSES}, followed by
+         * the scaled profiles for posted speed limits.
+         */
+        private final List<SpeedProfile> profiles;
+        /**
+         * The id of the scaled profile for each pair of road class and speed limit.
+         */
+        private final Map<String, Byte> limitProfiles;
+        private final List<Restriction> restrictions;
         private String state;
         private long id;
         private String name;
+        private String highway;
+        private String oneway;
+        private String junction;
+        private String maxspeed;
         private boolean validWay;
         private Point location;
         private Queue<Point> path;
+        private String restriction;
+        private List<Long> fromWays;
+        private List<Long> toWays;
+        private long via;
 
         Handler(Set<String> allowedHighwayTypes) {
             this.allowedHighwayTypes = allowedHighwayTypes;
             this.byId = new HashMap<>();
             this.byName = new HashMap<>();
+            this.byWay = new HashMap<>();
+            this.profiles = new ArrayList<>();
+            for (String roadClass : ROAD_CLASSES) {
+                profiles.add(SPEED_PROFILES.get(roadClass));
+            }
+            this.limitProfiles = new HashMap<>();
+            this.restrictions = new ArrayList<>();
             reset();
         }
 
@@ -203,9 +1158,83 @@ public class MapGraph implements AStarGraph<Point> {
             state = "";
             id = Long.MIN_VALUE;
             name = "";
+            highway = "";
+            oneway = "";
+            junction = "";
+            maxspeed = "";
             validWay = false;
             location = null;
             path = new ArrayDeque<>();
+            restriction = "";
+            fromWays = new ArrayList<>();
+            toWays = new ArrayList<>();
+            via = Long.MIN_VALUE;
+        }
+
+        /**
+         * Returns the direction of travel allowed along the current way.
+         *
+         * @return 1 if only forward travel is allowed, -1 if only reverse travel is allowed, or 0 for both.
+         */
+        private int direction() {
+            if (oneway.equals("yes") || oneway.equals("true") || oneway.equals("1")) {
+                return 1;
+            } else if (oneway.equals("-1") || oneway.equals("reverse")) {
+                return -1;
+            } else if (!oneway.isEmpty()) {
+                return 0;
+            }
+            boolean roundabout = junction.equals("roundabout") || junction.equals("circular");
+            return roundabout || IMPLIED_ONEWAY.contains(highway) ? 1 : 0;
+        }
+
+        /**
+         * Returns the id of the speed profile of the current way: its road class profile scaled to the posted speed
+         * limit if there is one, or else the road class profile.
+         *
+         * @return the id of the speed profile of the current way.
+         */
+        private byte profile() {
+            int kph = kilometersPerHour(maxspeed);
+            if (kph > 0) {
+                String key = highway + ":" + kph;
+                Byte id = limitProfiles.get(key);
+                if (id == null && profiles.size() < 256) {
+                    id = (byte) profiles.size();
+                    SpeedProfile base = SPEED_PROFILES.get(highway);
+                    profiles.add(base.scaled(metersPerSecond(kph) / base.maxSpeed()));
+                    limitProfiles.put(key, id);
+                }
+                if (id != null) {
+                    return id;
+                }
+            }
+            return (byte) ROAD_CLASSES.indexOf(highway);
+        }
+
+        /**
+         * Returns the nodes next to the via node along each of the given ways.
+         *
+         * @param ways the way ids.
+         * @param via  the via node.
+         * @return the nodes next to the via node along the ways.
+         */
+        private List<Point> adjacent(List<Long> ways, Point via) {
+            List<Point> result = new ArrayList<>();
+            for (long way : ways) {
+                List<Point> nodes = byWay.getOrDefault(way, List.of());
+                for (int i = 0; i < nodes.size(); i += 1) {
+                    if (nodes.get(i).equals(via)) {
+                        if (i > 0) {
+                            result.add(nodes.get(i - 1));
+                        }
+                        if (i + 1 < nodes.size()) {
+                            result.add(nodes.get(i + 1));
+                        }
+                    }
+                }
+            }
+            return result;
         }
 
         /**
@@ -232,6 +1261,24 @@ public class MapGraph implements AStarGraph<Point> {
                 );
             } else if (qName.equals("way")) {
                 state = "way";
+                id = Long.parseLong(attributes.getValue("id"));
+            } else if (qName.equals("relation")) {
+                state = "relation";
+            } else if (state.equals("relation") && qName.equals("member")) {
+                String role = attributes.getValue("role");
+                long ref = Long.parseLong(attributes.getValue("ref"));
+                if (role.equals("from") && attributes.getValue("type").equals("way")) {
+                    fromWays.add(ref);
+                } else if (role.equals("to") && attributes.getValue("type").equals("way")) {
+                    toWays.add(ref);
+                } else if (role.equals("via") && attributes.getValue("type").equals("node")) {
+                    via = ref;
+                }
+            } else if (state.equals("relation") && qName.equals("tag")) {
+                String k = attributes.getValue("k");
+                if (k.equals("restriction") || k.equals("restriction:motorcar")) {
+                    restriction = attributes.getValue("v");
+                }
             } else if (state.equals("way") && qName.equals("nd")) {
                 long ref = Long.parseLong(attributes.getValue("ref"));
                 path.add(byId.get(ref));
@@ -239,7 +1286,14 @@ public class MapGraph implements AStarGraph<Point> {
                 String k = attributes.getValue("k");
                 String v = attributes.getValue("v");
                 if (k.equals("highway")) {
+                    highway = v;
                     validWay = allowedHighwayTypes.contains(v);
+                } else if (k.equals("oneway")) {
+                    oneway = v;
+                } else if (k.equals("junction")) {
+                    junction = v;
+                } else if (k.equals("maxspeed")) {
+                    maxspeed = v;
                 }
             } else if (state.equals("node") && qName.equals("tag") && attributes.getValue("k").equals("name")) {
                 name = attributes.getValue("v").strip();
@@ -262,15 +1316,34 @@ public class MapGraph implements AStarGraph<Point> {
         public void endElement(String uri, String localName, String qName) {
             if (qName.equals("way")) {
                 if (validWay && !path.isEmpty()) {
+                    byWay.put(id, new ArrayList<>(path));
+                    byte profile = profile();
+                    int direction = direction();
                     Point from = path.remove();
                     while (!path.isEmpty()) {
                         Point to = path.remove();
-                        addEdge(from, to);
-                        addEdge(to, from);
+                        if (direction >= 0) {
+                            addEdge(from, to, profile);
+                        }
+                        if (direction <= 0) {
+                            addEdge(to, from, profile);
+                        }
                         from = to;
                     }
                 }
                 reset();
+            } else if (qName.equals("relation")) {
+                // Restrictions through a via-way are rare and are not supported.
+                Point viaNode = byId.get(via);
+                boolean only = restriction.startsWith("only_");
+                if (viaNode != null && (only || restriction.startsWith("no_"))) {
+                    List<Point> from = adjacent(fromWays, viaNode);
+                    List<Point> to = adjacent(toWays, viaNode);
+                    if (!from.isEmpty() && !to.isEmpty()) {
+                        restrictions.add(new Restriction(from, viaNode, to, only));
+                    }
+                }
+                reset();
             } else if (qName.equals("node")) {
                 byId.put(id, location);
                 if (!name.isBlank()) {
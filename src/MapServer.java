@@ -1,15 +1,36 @@
 import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.HttpStatus;
+import io.javalin.json.JsonMapper;
 import io.javalin.validation.ValidationException;
 import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.locationtech.spatial4j.context.SpatialContext;
 import org.locationtech.spatial4j.shape.Point;
 import org.locationtech.spatial4j.shape.ShapeFactory;
+import server.MapImageSource;
+import server.MapboxImageSource;
+import server.Metrics;
+import server.Polyline;
+import server.PolylineCache;
+import server.RequestExecutor;
+import server.StubImageSource;
+import server.TileCache;
+import server.TileImageSource;
+import server.TileRenderer;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLEncoder;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Run the Husky Maps server.
@@ -35,42 +56,347 @@ public class MapServer {
      * Maximum number of autocomplete search results.
      */
     private static final int MAX_MATCHES = 10;
+    /**
+     * Maximum length of the search prefixes whose top matches are precomputed when the map is loaded.
+     */
+    private static final int PREFIX_TABLE_LENGTH = 3;
+    /**
+     * Maximum number of longer search prefixes whose top matches are cached.
+     */
+    private static final int PREFIX_CACHE_SIZE = 8192;
+    /**
+     * Maximum number of routes kept in the route cache.
+     */
+    private static final int ROUTE_CACHE_SIZE = 4096;
+    /**
+     * Number of milliseconds a cached route remains valid.
+     */
+    private static final long ROUTE_CACHE_TTL_MILLIS = 30 * 60 * 1000;
+    /**
+     * Maximum number of sources or targets in a distance table request.
+     */
+    private static final int MAX_TABLE_SIZE = 1000;
+    /**
+     * Maximum number of start and goal pairs in a batch route request.
+     */
+    private static final int MAX_BATCH_ROUTES = 1000;
+    /**
+     * Maximum distance budget in meters for a reachability request.
+     */
+    private static final double MAX_REACHABLE_METERS = 20000;
+    /**
+     * Maximum number of requests in flight before new requests are answered with 429 Too Many Requests.
+     */
+    private static final int MAX_IN_FLIGHT_REQUESTS = 1024;
+    /**
+     * Maximum number of routing tasks waiting for a thread before new tasks are answered with 503 Service Unavailable.
+     */
+    private static final int ROUTING_QUEUE_CAPACITY = 256;
+    /**
+     * Maximum width or height in pixels of a map image, the largest the Mapbox Static Images API serves.
+     */
+    private static final int MAX_IMAGE_SIZE = 1280;
+    /**
+     * Number of milliseconds to wait for the remote map image API to connect and to respond.
+     */
+    private static final int IMAGE_TIMEOUT_MILLIS = 5000;
+    /**
+     * Maximum number of decoded map tiles kept in memory, each taking 256 KiB.
+     */
+    private static final int TILE_CACHE_SIZE = 1024;
+    /**
+     * Default directory of cached map tiles, unless overridden by the TILE_CACHE_DIR environment variable. Tiles are
+     * cached in a subdirectory named after the digest of the OpenStreetMap file they are drawn from.
+     */
+    private static final String TILE_CACHE_DIR = "tiles";
+    /**
+     * Maximum number of routes kept simplified and encoded for each zoom level.
+     */
+    private static final int POLYLINE_CACHE_SIZE = 4096;
 
     public static void main(String[] args) throws Exception {
         SpatialContext context = SpatialContext.GEO;
         ShapeFactory factory = context.getShapeFactory();
-        MapGraph map = new MapGraph(OSM_DB_PATH, PLACES_PATH, context);
+        MapGraph map = new MapGraph(OSM_DB_PATH, PLACES_PATH, context, ROUTE_CACHE_SIZE, ROUTE_CACHE_TTL_MILLIS,
+                PREFIX_TABLE_LENGTH, PREFIX_CACHE_SIZE);
+        TileCache tiles = new TileCache(new TileRenderer(map.roadSegments()), TILE_CACHE_SIZE, tileCacheDirectory());
+        PolylineCache polylines = new PolylineCache(POLYLINE_CACHE_SIZE);
+        MapImageSource images = imageSource(tiles, polylines);
+        RequestExecutor requests = new RequestExecutor(MAX_IN_FLIGHT_REQUESTS,
+                Runtime.getRuntime().availableProcessors(), ROUTING_QUEUE_CAPACITY);
         Javalin app = Javalin.create(config -> {
             config.spaRoot.addFile("/", "index.html");
         }).start(port());
-        app.get("/map/{lon},{lat},{zoom}/{width}x{height}", ctx -> {
+        app.exception(RejectedExecutionException.class, (e, ctx) -> {
+            ctx.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").result("Server busy");
+        });
+        app.get("/map/{lon},{lat},{zoom}/{width}x{height}", requests.async("map", ctx -> {
             double lon = ctx.pathParamAsClass("lon", Double.class).get();
             double lat = ctx.pathParamAsClass("lat", Double.class).get();
             int zoom = ctx.pathParamAsClass("zoom", Integer.class).get();
-            int width = ctx.pathParamAsClass("width", Integer.class).get();
-            int height = ctx.pathParamAsClass("height", Integer.class).get();
+            int width = ctx.pathParamAsClass("width", Integer.class)
+                    .check(w -> 1 <= w && w <= MAX_IMAGE_SIZE, "width out of range")
+                    .get();
+            int height = ctx.pathParamAsClass("height", Integer.class)
+                    .check(h -> 1 <= h && h <= MAX_IMAGE_SIZE, "height out of range")
+                    .get();
             String term = ctx.queryParam("term");
 
             Point center = factory.pointLatLon(lat, lon);
+            // Routes from start and goal get their id inside the routing task, so it is held in a one-element array.
+            String[] routeId = {ctx.queryParam("route")};
             List<Point> route;
-            try {
-                double startLon = ctx.queryParamAsClass("startLon", Double.class).get();
-                double startLat = ctx.queryParamAsClass("startLat", Double.class).get();
-                double goalLon = ctx.queryParamAsClass("goalLon", Double.class).get();
-                double goalLat = ctx.queryParamAsClass("goalLat", Double.class).get();
-                Point start = factory.pointLatLon(startLat, startLon);
-                Point goal = factory.pointLatLon(goalLat, goalLon);
-                route = map.shortestPath(start, goal);
-            } catch (ValidationException e) {
-                route = List.of();
+            if (routeId[0] != null) {
+                // Routes from /route are usually cached, so panning and zooming around them does no graph work.
+                route = requests.compute(() -> route(map, routeId[0]));
+            } else {
+                try {
+                    double startLon = ctx.queryParamAsClass("startLon", Double.class).get();
+                    double startLat = ctx.queryParamAsClass("startLat", Double.class).get();
+                    double goalLon = ctx.queryParamAsClass("goalLon", Double.class).get();
+                    double goalLat = ctx.queryParamAsClass("goalLat", Double.class).get();
+                    Point start = factory.pointLatLon(startLat, startLon);
+                    Point goal = factory.pointLatLon(goalLat, goalLon);
+                    route = requests.compute(() -> {
+                        routeId[0] = map.routeId(start, goal);
+                        return map.route(routeId[0]);
+                    });
+                } catch (ValidationException e) {
+                    route = List.of();
+                }
             }
             List<Point> locations = map.getLocations(term);
-            URL staticImageURL = url(center, zoom, width, height, route, locations);
-            ctx.result(new Base64InputStream(staticImageURL.openStream(), true));
-        });
-        app.get("/search", ctx -> {
+            String id = routeId[0];
+            List<Point> drawn = route;
+            // Local rendering shares the bounded pool with routing, while remote sources wait on their own thread.
+            InputStream image = images.isComputeBound()
+                    ? requests.compute(() -> images.image(center, zoom, width, height, id, drawn, locations))
+                    : images.image(center, zoom, width, height, id, drawn, locations);
+            ctx.result(new Base64InputStream(image, true));
+        }));
+        app.get("/tiles/{z}/{x}/{y}.png", requests.async("tiles", ctx -> {
+            int z = ctx.pathParamAsClass("z", Integer.class).get();
+            int x = ctx.pathParamAsClass("x", Integer.class).get();
+            int y = ctx.pathParamAsClass("y", Integer.class).get();
+            byte[] png;
+            try {
+                png = requests.compute(() -> tiles.png(z, x, y));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestResponse(e.getMessage());
+            }
+            // Tiles only change when the map data changes, so clients may cache them for a day.
+            ctx.contentType("image/png").header("Cache-Control", "public, max-age=86400").result(png);
+        }));
+        app.get("/route", requests.async("route", ctx -> {
+            double startLon = ctx.queryParamAsClass("startLon", Double.class).get();
+            double startLat = ctx.queryParamAsClass("startLat", Double.class).get();
+            double goalLon = ctx.queryParamAsClass("goalLon", Double.class).get();
+            double goalLat = ctx.queryParamAsClass("goalLat", Double.class).get();
+            Point start = factory.pointLatLon(startLat, startLon);
+            Point goal = factory.pointLatLon(goalLat, goalLon);
+            RouteResponse response = new RouteResponse();
+            // One task snaps both points once and finds the route, so a request is admitted or rejected as a whole.
+            List<Point> route = requests.compute(() -> {
+                response.id = map.routeId(start, goal);
+                return map.route(response.id);
+            });
+            if (ctx.queryParam("zoom") != null) {
+                int zoom = ctx.queryParamAsClass("zoom", Integer.class)
+                        .check(z -> 0 <= z && z <= TileCache.MAX_ZOOM, "zoom out of range")
+                        .get();
+                response.polyline = polylines.encoded(response.id, route, MapImageSource.tileZoom(zoom));
+            } else {
+                response.polyline = Polyline.encode(route);
+            }
+            response.meters = map.length(route);
+            ctx.json(response);
+        }));
+        app.post("/routes", requests.async("routes", ctx -> {
+            BatchRouteRequest request = ctx.bodyAsClass(BatchRouteRequest.class);
+            if (request.pairs == null || request.pairs.length == 0 || request.pairs.length > MAX_BATCH_ROUTES) {
+                throw new BadRequestResponse("Expected between 1 and " + MAX_BATCH_ROUTES + " pairs");
+            }
+            if (request.zoom != null && (request.zoom < 0 || request.zoom > TileCache.MAX_ZOOM)) {
+                throw new BadRequestResponse("zoom out of range");
+            }
+            List<Point> starts = new ArrayList<>(request.pairs.length);
+            List<Point> goals = new ArrayList<>(request.pairs.length);
+            for (double[] pair : request.pairs) {
+                if (pair == null || pair.length != 4) {
+                    throw new BadRequestResponse("Expected [startLon, startLat, goalLon, goalLat] pairs");
+                }
+                starts.add(factory.pointLatLon(pair[1], pair[0]));
+                goals.add(factory.pointLatLon(pair[3], pair[2]));
+            }
+            JsonMapper json = ctx.jsonMapper();
+            ctx.contentType("application/x-ndjson");
+            Writer out = new BufferedWriter(new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8));
+            requests.computeParallel(executor -> {
+                // Groups finish on different threads, so each line is written under the lock.
+                map.shortestPaths(starts, goals, executor, (i, route) -> {
+                    BatchRouteResponse response = new BatchRouteResponse();
+                    response.index = i;
+                    if (!route.isEmpty()) {
+                        List<Point> drawn = request.zoom != null
+                                ? Polyline.simplify(route, MapImageSource.tileZoom(request.zoom))
+                                : route;
+                        response.polyline = Polyline.encode(drawn);
+                        response.meters = map.length(route);
+                    }
+                    String line = json.toJsonString(response, BatchRouteResponse.class);
+                    synchronized (out) {
+                        try {
+                            out.write(line);
+                            out.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+                return null;
+            });
+            out.flush();
+        }));
+        app.get("/search", requests.async("search", ctx -> {
             ctx.json(map.getLocationsByPrefix(ctx.queryParam("term"), MAX_MATCHES));
+        }));
+        app.post("/distances", requests.async("distances", ctx -> {
+            DistanceTableRequest request = ctx.bodyAsClass(DistanceTableRequest.class);
+            List<Point> sources = points(factory, request.sources);
+            List<Point> targets = points(factory, request.targets);
+            double[][] distances = requests.computeParallel(executor -> map.distanceTable(sources, targets, executor));
+            List<List<Double>> result = new ArrayList<>(distances.length);
+            for (double[] row : distances) {
+                List<Double> values = new ArrayList<>(row.length);
+                for (double distance : row) {
+                    // JSON has no infinity, so unreachable targets are reported as null.
+                    values.add(Double.isInfinite(distance) ? null : distance);
+                }
+                result.add(values);
+            }
+            ctx.json(result);
+        }));
+        app.get("/reachable/{lon},{lat}", requests.async("reachable", ctx -> {
+            double lon = ctx.pathParamAsClass("lon", Double.class).get();
+            double lat = ctx.pathParamAsClass("lat", Double.class).get();
+            double meters = ctx.queryParamAsClass("meters", Double.class)
+                    .check(m -> 0 <= m && m <= MAX_REACHABLE_METERS, "meters out of range")
+                    .get();
+            Point center = factory.pointLatLon(lat, lon);
+            ctx.json(coordinates(requests.compute(() -> map.reachable(center, meters))));
+        }));
+        app.get("/latency", ctx -> {
+            ctx.json(requests.latencySummaries());
         });
+
+        Metrics metrics = map.metrics();
+        metrics.jvm();
+        metrics.cache("tiles", tiles.memory());
+        metrics.cache("polylines", polylines.encoded());
+        requests.latencies().forEach((endpoint, histogram) -> {
+            metrics.timer("husky_http_request_seconds{endpoint=\"" + endpoint + "\"}", histogram);
+        });
+        metrics.counter("husky_http_too_many_requests_total", requests::tooManyRequests);
+        metrics.counter("husky_routing_rejected_tasks_total", requests::rejectedTasks);
+        metrics.gauge("husky_routing_queued_tasks", requests::queuedTasks);
+        app.get("/metrics", ctx -> {
+            ctx.contentType("text/plain; version=0.0.4").result(metrics.prometheus());
+        });
+    }
+
+    /**
+     * Returns the source of map images depending on the MAP_IMAGES environment variable: a local stub for "stub", such
+     * as for load tests, the Mapbox API with the access token in the TOKEN environment variable for "mapbox", or else
+     * the local road network tiles.
+     *
+     * @param tiles     the cache of local road network tiles.
+     * @param polylines the cache of simplified and encoded routes.
+     * @return the source of map images.
+     */
+    private static MapImageSource imageSource(TileCache tiles, PolylineCache polylines) {
+        String images = System.getenv("MAP_IMAGES");
+        if ("stub".equals(images)) {
+            String delay = System.getenv("MAP_IMAGES_DELAY_MILLIS");
+            return new StubImageSource(delay != null ? Long.parseLong(delay) : 0);
+        } else if ("mapbox".equals(images)) {
+            return new MapboxImageSource(System.getenv("TOKEN"), IMAGE_TIMEOUT_MILLIS, polylines);
+        }
+        return new TileImageSource(tiles, polylines);
+    }
+
+    /**
+     * Returns the directory of cached map tiles for the current OpenStreetMap file, or null to cache tiles in memory
+     * only if the TILE_CACHE_DIR environment variable is empty. The directory is named after a digest of the file, so
+     * tiles drawn from an older file are never served after it changes.
+     *
+     * @return the directory of cached map tiles, or null.
+     * @throws IOException if the OpenStreetMap file cannot be read.
+     */
+    private static Path tileCacheDirectory() throws IOException {
+        String directory = System.getenv("TILE_CACHE_DIR");
+        if (directory != null && directory.isEmpty()) {
+            return null;
+        }
+        String digest;
+        try (InputStream osm = Thread.currentThread().getContextClassLoader().getResourceAsStream(OSM_DB_PATH)) {
+            if (osm == null) {
+                throw new FileNotFoundException(OSM_DB_PATH);
+            }
+            digest = DigestUtils.sha256Hex(osm).substring(0, 16);
+        }
+        return Path.of(directory != null ? directory : TILE_CACHE_DIR).resolve(digest);
+    }
+
+    /**
+     * Returns the route with the given id.
+     *
+     * @param map     the map graph.
+     * @param routeId the route id returned by the route endpoint.
+     * @return the list of points on the route.
+     * @throws BadRequestResponse if the route id is malformed or unknown.
+     */
+    private static List<Point> route(MapGraph map, String routeId) {
+        try {
+            return map.route(routeId);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the [lon, lat] pairs representing the given points.
+     *
+     * @param points the points to represent.
+     * @return the [lon, lat] pairs representing the points.
+     */
+    private static double[][] coordinates(List<Point> points) {
+        double[][] result = new double[points.size()][];
+        for (int i = 0; i < points.size(); i += 1) {
+            result[i] = new double[]{points.get(i).getLon(), points.get(i).getLat()};
+        }
+        return result;
+    }
+
+    /**
+     * Returns the points represented by the given [lon, lat] pairs.
+     *
+     * @param factory     the {@link ShapeFactory} for creating points.
+     * @param coordinates the [lon, lat] pairs.
+     * @return the points represented by the coordinates.
+     * @throws BadRequestResponse if the coordinates are missing, malformed, or too numerous.
+     */
+    private static List<Point> points(ShapeFactory factory, double[][] coordinates) {
+        if (coordinates == null || coordinates.length == 0 || coordinates.length > MAX_TABLE_SIZE) {
+            throw new BadRequestResponse("Expected between 1 and " + MAX_TABLE_SIZE + " [lon, lat] pairs");
+        }
+        List<Point> result = new ArrayList<>(coordinates.length);
+        for (double[] lonLat : coordinates) {
+            if (lonLat == null || lonLat.length != 2) {
+                throw new BadRequestResponse("Expected [lon, lat] pairs");
+            }
+            result.add(factory.pointLatLon(lonLat[1], lonLat[0]));
+        }
+        return result;
     }
 
     /**
@@ -87,86 +413,45 @@ public class MapServer {
     }
 
     /**
-     * Return the API URL for retrieving the map image.
+     * JSON response of a route request: the route id for later map requests, the route as an encoded polyline, and
+     * its length in meters. If the request has a zoom level, the polyline is simplified for a map image at that zoom
+     * level, as requested from the map endpoint.
      *
-     * @param center    the center of the map image.
-     * @param width     the width of the window.
-     * @param height    the height of the window.
-     * @param route     the list of route points (or null).
-     * @param locations the list of locations (or null).
-     * @return the URL for retrieving the map image.
-     * @throws MalformedURLException if the URL is invalid.
-     */
-    private static URL url(Point center, int zoom, int width, int height, List<Point> route, List<Point> locations)
-            throws MalformedURLException {
-        StringBuilder overlay = new StringBuilder();
-        if (route != null && !route.isEmpty()) {
-            overlay.append("path-4+6cb5e6-1(");
-            overlay.append(URLEncoder.encode(encode(route), StandardCharsets.UTF_8));
-            overlay.append("),");
-        }
-        if (locations != null && !locations.isEmpty()) {
-            for (Point location : locations) {
-                overlay.append("pin-s(");
-                overlay.append(location.getLon());
-                overlay.append(',');
-                overlay.append(location.getLat());
-                overlay.append("),");
-            }
-        }
-        if (!overlay.isEmpty()) {
-            // Replace the trailing comma with a forward slash
-            overlay.setCharAt(overlay.length() - 1, '/');
-        }
-        return new URL(String.format(
-                "https://api.mapbox.com/"
-                        // {username}/{style_id} and {overlay} (must include trailing slash)
-                        + "styles/v1/%s/%s/static/%s"
-                        // {lon},{lat},{zoom}/{width}x{height}{@2x}
-                        + "%f,%f,%d/%dx%d%s"
-                        // Access token and optional parameters
-                        + "?access_token=%s&logo=false&attribution=false",
-                "mapbox",
-                "cj7t3i5yj0unt2rmt3y4b5e32",
-                overlay,
-                center.getLon(), center.getLat(), zoom,
-                (int) Math.ceil(width / 2.), (int) Math.ceil(height / 2.), "@2x",
-                System.getenv("TOKEN")
-        ));
+     * @see MapImageSource#tileZoom(int)
+     */
+    public static class RouteResponse {
+        public String id;
+        public String polyline;
+        public double meters;
     }
 
     /**
-     * Returns an encoded route string.
+     * JSON body of a batch route request: {@code {"pairs": [[startLon, startLat, goalLon, goalLat], ...]}} with an
+     * optional zoom level of map images, as requested from the map endpoint, for simplifying the returned routes.
      *
-     * @param route list of points representing the route to encode.
-     * @return an encoded route string.
-     * @see <a href="https://github.com/mapbox/mapbox-java">MapBox PolylineUtils</a>
-     */
-    private static String encode(List<Point> route) {
-        StringBuilder result = new StringBuilder();
-        long lastLat = 0;
-        long lastLon = 0;
-        for (Point point : route) {
-            long lat = Math.round(point.getLat() * 1e5);
-            long diffLat = lat - lastLat;
-            diffLat = diffLat < 0 ? ~(diffLat << 1) : diffLat << 1;
-            while (diffLat >= 0x20) {
-                result.append(Character.toChars((int) ((0x20 | (diffLat & 0x1f)) + 63)));
-                diffLat >>= 5;
-            }
-            result.append(Character.toChars((int) (diffLat + 63)));
-            lastLat = lat;
+     * @see MapImageSource#tileZoom(int)
+     */
+    public static class BatchRouteRequest {
+        public double[][] pairs;
+        public Integer zoom;
+    }
 
-            long lon = Math.round(point.getLon() * 1e5);
-            long diffLon = lon - lastLon;
-            diffLon = diffLon < 0 ? ~(diffLon << 1) : diffLon << 1;
-            while (diffLon >= 0x20) {
-                result.append(Character.toChars((int) ((0x20 | (diffLon & 0x1f)) + 63)));
-                diffLon >>= 5;
-            }
-            result.append(Character.toChars((int) (diffLon + 63)));
-            lastLon = lon;
-        }
-        return result.toString();
+    /**
+     * One line of the newline-delimited JSON response of a batch route request: the index of the pair in the request,
+     * and the route as an encoded polyline and its length in meters, both null if the goal is unreachable. Lines are
+     * written as their routes are found, not in request order.
+     */
+    public static class BatchRouteResponse {
+        public int index;
+        public String polyline;
+        public Double meters;
+    }
+
+    /**
+     * JSON body of a distance table request: {@code {"sources": [[lon, lat], ...], "targets": [[lon, lat], ...]}}.
+     */
+    public static class DistanceTableRequest {
+        public double[][] sources;
+        public double[][] targets;
     }
 }
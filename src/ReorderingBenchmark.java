@@ -0,0 +1,176 @@
+import graphs.AStarGraph;
+import graphs.Edge;
+import graphs.IndexedGraph;
+import graphs.shortestpaths.IntAStarSolver;
+import graphs.shortestpaths.SearchWorkspace;
+
+import java.util.*;
+
+/**
+ * Compare {@link IntAStarSolver} query throughput on a random road-like graph when its vertices are numbered randomly,
+ * in breadth-first order, and in Hilbert-curve order. Optionally takes the number of vertices as the first argument.
+ */
+public class ReorderingBenchmark {
+    /**
+     * Default number of vertices in the graph.
+     */
+    private static final int DEFAULT_SIZE = 500_000;
+    /**
+     * Number of random queries per timed run.
+     */
+    private static final int QUERIES = 200;
+    /**
+     * Number of timed runs per ordering; the fastest run is reported.
+     */
+    private static final int REPETITIONS = 3;
+    /**
+     * Number of nearest points each point is connected to.
+     */
+    private static final int DEGREE = 3;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        Random random = new Random(373);
+        PlaneGraph plane = new PlaneGraph(size, random);
+        List<Integer> shuffled = new ArrayList<>(plane.neighbors.keySet());
+        Collections.shuffle(shuffled, random);
+        IndexedGraph<Integer> unordered = new IndexedGraph<>(plane, shuffled);
+        System.out.println(unordered.size() + " vertices, " + unordered.edgeCount() + " edges");
+
+        int[][] queries = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; i += 1) {
+            queries[i] = new int[]{random.nextInt(size), random.nextInt(size)};
+        }
+        double[] x = new double[unordered.size()];
+        double[] y = new double[unordered.size()];
+        for (int v = 0; v < unordered.size(); v += 1) {
+            x[v] = plane.x[unordered.vertex(v)];
+            y[v] = plane.y[unordered.vertex(v)];
+        }
+        Map<String, IndexedGraph<Integer>> orderings = new LinkedHashMap<>();
+        orderings.put("Random", unordered);
+        orderings.put("Breadth-first", unordered.reordered(IndexedGraph.breadthFirstOrder(unordered)));
+        orderings.put("Hilbert", unordered.reordered(IndexedGraph.hilbertOrder(x, y)));
+
+        double[] expected = null;
+        double baseline = 0;
+        for (Map.Entry<String, IndexedGraph<Integer>> entry : orderings.entrySet()) {
+            IndexedGraph<Integer> graph = entry.getValue();
+            SearchWorkspace workspace = new SearchWorkspace(graph.size());
+            double[] distances = run(graph, queries, workspace);
+            if (expected == null) {
+                expected = distances;
+            } else if (!Arrays.equals(expected, distances)) {
+                throw new IllegalStateException("Distance mismatch for " + entry.getKey());
+            }
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < REPETITIONS; i += 1) {
+                long start = System.nanoTime();
+                run(graph, queries, workspace);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            double perSecond = QUERIES / (best / 1e9);
+            if (baseline == 0) {
+                baseline = perSecond;
+            }
+            System.out.printf("%-14s %10.1f queries/s  %5.2fx vs random%n", entry.getKey(), perSecond,
+                    perSecond / baseline);
+        }
+    }
+
+    /**
+     * Runs every query on the graph and returns the shortest-path distances.
+     *
+     * @param graph     the graph to search.
+     * @param queries   the pairs of start and goal vertices of the plane graph.
+     * @param workspace the workspace for the searches.
+     * @return the distance for each query.
+     */
+    private static double[] run(IndexedGraph<Integer> graph, int[][] queries, SearchWorkspace workspace) {
+        double[] result = new double[queries.length];
+        for (int i = 0; i < queries.length; i += 1) {
+            int start = graph.id(queries[i][0]);
+            int goal = graph.id(queries[i][1]);
+            result[i] = new IntAStarSolver(graph, start, goal, workspace).distance();
+        }
+        return result;
+    }
+
+    /**
+     * Random points in the unit square, each connected in both directions to its nearest points, with Euclidean
+     * weights and heuristic.
+     */
+    private static class PlaneGraph implements AStarGraph<Integer> {
+        private final double[] x;
+        private final double[] y;
+        private final Map<Integer, List<Edge<Integer>>> neighbors;
+
+        /**
+         * Constructs a random plane graph with the given number of points.
+         *
+         * @param size   the number of points.
+         * @param random the source of random points.
+         */
+        PlaneGraph(int size, Random random) {
+            x = new double[size];
+            y = new double[size];
+            neighbors = new HashMap<>();
+            // Bucket the points into a grid with about two points per cell to find near neighbors quickly.
+            int side = Math.max(1, (int) Math.sqrt(size / 2.0));
+            List<List<Integer>> buckets = new ArrayList<>();
+            for (int i = 0; i < side * side; i += 1) {
+                buckets.add(new ArrayList<>());
+            }
+            for (int v = 0; v < size; v += 1) {
+                x[v] = random.nextDouble();
+                y[v] = random.nextDouble();
+                buckets.get(bucket(v, side)).add(v);
+                neighbors.put(v, new ArrayList<>());
+            }
+            for (int v = 0; v < size; v += 1) {
+                int bx = bucket(v, side) % side;
+                int by = bucket(v, side) / side;
+                List<Integer> near = new ArrayList<>();
+                for (int dy = -1; dy <= 1; dy += 1) {
+                    for (int dx = -1; dx <= 1; dx += 1) {
+                        if (bx + dx >= 0 && bx + dx < side && by + dy >= 0 && by + dy < side) {
+                            near.addAll(buckets.get((by + dy) * side + bx + dx));
+                        }
+                    }
+                }
+                near.remove(Integer.valueOf(v));
+                int from = v;
+                near.sort(Comparator.comparingDouble(w -> estimatedDistance(from, w)));
+                for (int i = 0; i < Math.min(DEGREE, near.size()); i += 1) {
+                    int w = near.get(i);
+                    double weight = estimatedDistance(v, w);
+                    neighbors.get(v).add(new Edge<>(v, w, weight));
+                    neighbors.get(w).add(new Edge<>(w, v, weight));
+                }
+            }
+        }
+
+        /**
+         * Returns the grid bucket of the point.
+         *
+         * @param v    the point.
+         * @param side the number of buckets along each side of the grid.
+         * @return the index of the bucket.
+         */
+        private int bucket(int v, int side) {
+            int bx = Math.min(side - 1, (int) (x[v] * side));
+            int by = Math.min(side - 1, (int) (y[v] * side));
+            return by * side + bx;
+        }
+
+        @Override
+        public List<Edge<Integer>> neighbors(Integer v) {
+            return neighbors.get(v);
+        }
+
+        @Override
+        public double estimatedDistance(Integer start, Integer end) {
+            return Math.hypot(x[start] - x[end], y[start] - y[end]);
+        }
+    }
+}
@@ -1,4 +1,5 @@
-import graphs.shortestpaths.DijkstraSolver;
+import graphs.shortestpaths.IndexedSolver;
+import graphs.shortestpaths.IntDijkstraSolver;
 import seamfinding.energy.DualGradientEnergyFunction;
 import seamfinding.energy.EnergyFunction;
 import seamfinding.AdjacencyListSeamFinder;
@@ -60,7 +61,7 @@ public class SeamCarver {
 
     public static void main(String[] args) throws IOException {
         EnergyFunction f = new DualGradientEnergyFunction();
-        SeamFinder seamFinder = new AdjacencyListSeamFinder(DijkstraSolver::new);
+        SeamFinder seamFinder = new AdjacencyListSeamFinder(IndexedSolver.of(IntDijkstraSolver::new));
         SeamCarver seamCarver = new SeamCarver(new File(INPUT_PATH), f, seamFinder);
 
         int originalWidth = seamCarver.picture.width();
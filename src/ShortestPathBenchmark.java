@@ -0,0 +1,152 @@
+import graphs.IntGraph;
+import graphs.shortestpaths.IntDeltaSteppingSolver;
+import graphs.shortestpaths.IntDijkstraSolver;
+import graphs.shortestpaths.IntShortestPathSolver;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Compare one-to-all {@link IntDijkstraSolver} against {@link IntDeltaSteppingSolver} with 1 to <i>N</i> threads on a
+ * randomly-weighted grid graph. Optionally takes the grid side length as the first argument.
+ */
+public class ShortestPathBenchmark {
+    /**
+     * Default number of vertices along each side of the grid.
+     */
+    private static final int DEFAULT_SIDE = 1000;
+    /**
+     * Number of timed runs per configuration; the fastest run is reported.
+     */
+    private static final int REPETITIONS = 3;
+    /**
+     * Maximum edge weight. Weights are uniformly distributed in [1, MAX_WEIGHT].
+     */
+    private static final int MAX_WEIGHT = 100;
+    /**
+     * Bucket width for delta-stepping.
+     */
+    private static final double DELTA = MAX_WEIGHT;
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIDE;
+        GridGraph graph = new GridGraph(side, new Random(373));
+        System.out.println(graph.size() + " vertices, " + graph.edgeCount() + " edges");
+
+        IntShortestPathSolver expected = new IntDijkstraSolver(graph, 0);
+        double dijkstra = time(() -> new IntDijkstraSolver(graph, 0));
+        System.out.printf("%-22s %8.1f ms%n", "Dijkstra", dijkstra);
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            IntShortestPathSolver actual = new IntDeltaSteppingSolver(graph, 0, DELTA, pool);
+            for (int v = 0; v < graph.size(); v += 1) {
+                if (actual.distTo(v) != expected.distTo(v)) {
+                    throw new IllegalStateException("Distance mismatch at vertex " + v);
+                }
+            }
+            double elapsed = time(() -> new IntDeltaSteppingSolver(graph, 0, DELTA, pool));
+            System.out.printf("%-22s %8.1f ms  %5.2fx vs Dijkstra%n",
+                    "Delta-stepping x" + threads, elapsed, dijkstra / elapsed);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the next thread count to measure: doubling, but always ending with the maximum.
+     *
+     * @param threads    the current thread count.
+     * @param maxThreads the maximum thread count.
+     * @return the next thread count to measure.
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if (threads == maxThreads) {
+            return maxThreads + 1;
+        }
+        return Math.min(2 * threads, maxThreads);
+    }
+
+    /**
+     * Returns the fastest of several runs in milliseconds after one untimed warm-up run.
+     *
+     * @param run the computation to time.
+     * @return the fastest run time in milliseconds.
+     */
+    private static double time(Supplier<?> run) {
+        run.get();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i += 1) {
+            long start = System.nanoTime();
+            run.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    /**
+     * Square grid graph in which each vertex has randomly-weighted edges to its four neighbors.
+     */
+    private static class GridGraph implements IntGraph {
+        private final int side;
+        private final double[] weights;
+
+        /**
+         * Constructs a grid graph with the given side length and random weights.
+         *
+         * @param side   the number of vertices along each side.
+         * @param random the source of random weights.
+         */
+        GridGraph(int side, Random random) {
+            this.side = side;
+            this.weights = new double[4 * side * side];
+            for (int e = 0; e < weights.length; e += 1) {
+                weights[e] = 1 + random.nextInt(MAX_WEIGHT);
+            }
+        }
+
+        @Override
+        public int size() {
+            return side * side;
+        }
+
+        @Override
+        public int edgeCount() {
+            return weights.length;
+        }
+
+        @Override
+        public int edgeStart(int vertex) {
+            return 4 * vertex;
+        }
+
+        @Override
+        public int edgeEnd(int vertex) {
+            return 4 * vertex + 4;
+        }
+
+        @Override
+        public int to(int edge) {
+            // Edges wrap around the borders so that every vertex has exactly four neighbors.
+            int vertex = edge / 4;
+            int x = vertex % side;
+            int y = vertex / side;
+            switch (edge % 4) {
+                case 0:
+                    return y * side + (x + 1) % side;
+                case 1:
+                    return y * side + (x + side - 1) % side;
+                case 2:
+                    return ((y + 1) % side) * side + x;
+                default:
+                    return ((y + side - 1) % side) * side + x;
+            }
+        }
+
+        @Override
+        public double weight(int edge) {
+            return weights[edge];
+        }
+    }
+}
@@ -10,6 +10,8 @@ import java.util.List;
  * @see SequentialSearchAutocomplete
  * @see BinarySearchAutocomplete
  * @see TernarySearchTreeAutocomplete
+ * @see CompletionTrieAutocomplete
+ * @see DawgAutocomplete
  */
 public interface Autocomplete {
     /**
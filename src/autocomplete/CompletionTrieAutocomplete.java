@@ -0,0 +1,386 @@
+package autocomplete;
+
+import java.util.*;
+
+/**
+ * Weighted ternary search tree implementation of the {@link WeightedAutocomplete} interface. Each node stores the
+ * greatest weight of any term in its subtree, so {@link #topMatches(CharSequence, int)} runs a best-first search that
+ * only expands subtrees that can still contain one of the top <i>k</i> matches, visiting about <i>O</i>(<i>k</i> log
+ * <i>n</i>) nodes no matter how many terms share the prefix.
+ * <p>
+ * {@link #fuzzyTopMatches(CharSequence, int, int)} intersects the tree with a Levenshtein automaton for the prefix,
+ * simulated one row of edit distances per tree level, and only descends while some row entry is within the edit
+ * bound. The intersection runs lazily inside the same best-first search: a subtree not yet intersected is keyed by the
+ * smallest entry of its row, which no match inside it can beat, and by its greatest weight. The number of nodes the
+ * intersection visits is capped, so that a short prefix with many edits cannot scan the tree. Since nodes are visited
+ * best first and the search stops at the cap, a capped result is still the start of the exact ranking, only shorter.
+ *
+ * @see WeightedAutocomplete
+ * @see TernarySearchTreeAutocomplete
+ */
+public class CompletionTrieAutocomplete implements WeightedAutocomplete {
+    /**
+     * Greatest number of edits allowed by {@link #fuzzyTopMatches(CharSequence, int, int)}.
+     */
+    private static final int MAX_EDITS = 2;
+    /**
+     * Greatest number of nodes visited while intersecting the tree with the Levenshtein automaton of a prefix.
+     */
+    private static final int MAX_FUZZY_VISITS = 20000;
+    /**
+     * The overall root of the tree: the first character of the first autocompletion term added to this tree.
+     */
+    private Node overallRoot;
+
+    /**
+     * Constructs an empty instance.
+     */
+    public CompletionTrieAutocomplete() {
+        overallRoot = null;
+    }
+
+    @Override
+    public void addAll(Collection<? extends CharSequence> terms) {
+        for (CharSequence term : terms) {
+            if (term.length() > 0) {
+                overallRoot = add(overallRoot, term, 0, 0.0);
+            }
+        }
+    }
+
+    @Override
+    public void addAll(Map<? extends CharSequence, ? extends Number> weights) {
+        for (Map.Entry<? extends CharSequence, ? extends Number> entry : weights.entrySet()) {
+            if (entry.getKey().length() > 0) {
+                overallRoot = add(overallRoot, entry.getKey(), 0, entry.getValue().doubleValue());
+            }
+        }
+    }
+
+    /**
+     * Adds the term with the given weight to the subtree and updates the greatest weights along the way.
+     *
+     * @param x      the root of the subtree.
+     * @param term   the term to add.
+     * @param d      the index of the character of the term at this level.
+     * @param weight the weight of the term.
+     * @return the root of the subtree with the term added.
+     */
+    private Node add(Node x, CharSequence term, int d, double weight) {
+        char c = term.charAt(d);
+        if (x == null) {
+            x = new Node(c);
+        }
+        if (c < x.data) {
+            x.left = add(x.left, term, d, weight);
+        } else if (c > x.data) {
+            x.right = add(x.right, term, d, weight);
+        } else if (d < term.length() - 1) {
+            x.mid = add(x.mid, term, d + 1, weight);
+        } else {
+            x.isTerm = true;
+            x.weight = weight;
+        }
+        // Recompute rather than only raise the greatest weight, since the term may have replaced a heavier weight.
+        x.max = Math.max(x.isTerm ? x.weight : Double.NEGATIVE_INFINITY,
+                Math.max(max(x.left), Math.max(max(x.mid), max(x.right))));
+        return x;
+    }
+
+    /**
+     * Returns the greatest weight of any term in the subtree, or negative infinity if the subtree is empty.
+     *
+     * @param x the root of the subtree.
+     * @return the greatest weight in the subtree.
+     */
+    private static double max(Node x) {
+        return x == null ? Double.NEGATIVE_INFINITY : x.max;
+    }
+
+    @Override
+    public List<CharSequence> allMatches(CharSequence prefix) {
+        List<CharSequence> result = new ArrayList<>();
+        if (prefix == null || prefix.length() == 0) {
+            return result;
+        }
+        Node x = get(overallRoot, prefix);
+        if (x == null) {
+            return result;
+        }
+        if (x.isTerm) {
+            result.add(prefix.toString());
+        }
+        collect(x.mid, new StringBuilder(prefix), result);
+        return result;
+    }
+
+    @Override
+    public List<CharSequence> topMatches(CharSequence prefix, int k) {
+        List<CharSequence> result = new ArrayList<>();
+        if (prefix == null || prefix.length() == 0 || k <= 0) {
+            return result;
+        }
+        Node x = get(overallRoot, prefix);
+        if (x == null) {
+            return result;
+        }
+        // Candidates are whole terms or subtrees, best bound first. A subtree is keyed by the prefix shared by all of
+        // its terms, which sorts before each of them, so ties come out in order of increasing term.
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        String p = prefix.toString();
+        if (x.isTerm) {
+            candidates.add(new Candidate(0, x.weight, p, null));
+        }
+        if (x.mid != null) {
+            candidates.add(new Candidate(0, x.mid.max, p, x.mid));
+        }
+        return best(candidates, k, null);
+    }
+
+    @Override
+    public List<CharSequence> fuzzyTopMatches(CharSequence prefix, int maxEdits, int k) {
+        if (maxEdits < 0 || maxEdits > MAX_EDITS) {
+            throw new IllegalArgumentException("maxEdits must be between 0 and " + MAX_EDITS + ": " + maxEdits);
+        }
+        if (prefix == null || prefix.length() == 0 || k <= 0) {
+            return new ArrayList<>();
+        }
+        if (overallRoot == null) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        int[] row = new int[prefix.length() + 1];
+        for (int j = 0; j < row.length; j += 1) {
+            row[j] = j;
+        }
+        if (row[prefix.length()] <= maxEdits) {
+            // Deleting the whole prefix is within the bound, so every term matches.
+            candidates.add(new Candidate(row[prefix.length()], overallRoot.max, "", overallRoot));
+        }
+        candidates.add(new Candidate(0, overallRoot.max, "", overallRoot, row));
+        return best(candidates, k, new FuzzySearch(prefix, maxEdits));
+    }
+
+    /**
+     * Removes candidates best first, expanding subtrees into their terms and child subtrees, until k distinct terms
+     * are found. A term can be reached through several candidates with different numbers of edits, in which case
+     * only its first and best occurrence is kept.
+     *
+     * @param candidates the candidates to expand.
+     * @param k          the maximum number of terms to return.
+     * @param search     the intersection with the Levenshtein automaton of the prefix, or null for exact matches.
+     * @return a list of at most k terms, best first.
+     */
+    private static List<CharSequence> best(PriorityQueue<Candidate> candidates, int k, FuzzySearch search) {
+        List<CharSequence> result = new ArrayList<>();
+        Set<String> found = new HashSet<>();
+        while (!candidates.isEmpty() && result.size() < k) {
+            Candidate candidate = candidates.remove();
+            Node node = candidate.node;
+            if (node == null) {
+                if (found.add(candidate.string)) {
+                    result.add(candidate.string);
+                }
+                continue;
+            } else if (candidate.row != null) {
+                if (!search.expand(candidate, candidates)) {
+                    break;
+                }
+                continue;
+            }
+            String string = candidate.string + node.data;
+            if (node.isTerm) {
+                candidates.add(new Candidate(candidate.edits, node.weight, string, null));
+            }
+            if (node.mid != null) {
+                candidates.add(new Candidate(candidate.edits, node.mid.max, string, node.mid));
+            }
+            if (node.left != null) {
+                candidates.add(new Candidate(candidate.edits, node.left.max, candidate.string, node.left));
+            }
+            if (node.right != null) {
+                candidates.add(new Candidate(candidate.edits, node.right.max, candidate.string, node.right));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node of the last character of the prefix, or null if no term starts with the prefix.
+     *
+     * @param x      the root of the tree.
+     * @param prefix the non-empty prefix.
+     * @return the node of the last character of the prefix, or null.
+     */
+    private static Node get(Node x, CharSequence prefix) {
+        int d = 0;
+        while (x != null) {
+            char c = prefix.charAt(d);
+            if (c < x.data) {
+                x = x.left;
+            } else if (c > x.data) {
+                x = x.right;
+            } else if (d < prefix.length() - 1) {
+                x = x.mid;
+                d += 1;
+            } else {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds every term in the subtree to the result in sorted order.
+     *
+     * @param x      the root of the subtree.
+     * @param prefix the characters before the subtree.
+     * @param result the list of terms.
+     */
+    private static void collect(Node x, StringBuilder prefix, List<CharSequence> result) {
+        if (x == null) {
+            return;
+        }
+        collect(x.left, prefix, result);
+        prefix.append(x.data);
+        if (x.isTerm) {
+            result.add(prefix.toString());
+        }
+        collect(x.mid, prefix, result);
+        prefix.deleteCharAt(prefix.length() - 1);
+        collect(x.right, prefix, result);
+    }
+
+    /**
+     * A search tree node representing a single character in an autocompletion term.
+     */
+    private static class Node {
+        private final char data;
+        private boolean isTerm;
+        /**
+         * The weight of the term ending at this node, if any.
+         */
+        private double weight;
+        /**
+         * The greatest weight of any term in the subtree rooted at this node, including its left and right siblings.
+         */
+        private double max;
+        private Node left;
+        private Node mid;
+        private Node right;
+
+        Node(char data) {
+            this.data = data;
+            this.isTerm = false;
+            this.max = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * The intersection of the tree with the Levenshtein automaton of a prefix, which turns every node whose path is
+     * within the edit bound of the whole prefix into candidates, one node at a time.
+     */
+    private static class FuzzySearch {
+        private final CharSequence prefix;
+        private final int maxEdits;
+        private int visits;
+
+        FuzzySearch(CharSequence prefix, int maxEdits) {
+            this.prefix = prefix;
+            this.maxEdits = maxEdits;
+            this.visits = 0;
+        }
+
+        /**
+         * Intersects the root of the candidate's subtree with the automaton. Its siblings are added back with the same
+         * row, and its middle child is added with the row for the root's character if a longer path could still match
+         * the whole prefix with fewer edits.
+         *
+         * @param candidate  the subtree not yet intersected, with the row for the string before it.
+         * @param candidates the candidates to add to.
+         * @return false, without expanding, if the cap on visits is reached, and true otherwise.
+         */
+        boolean expand(Candidate candidate, PriorityQueue<Candidate> candidates) {
+            if (visits >= MAX_FUZZY_VISITS) {
+                return false;
+            }
+            visits += 1;
+            Node x = candidate.node;
+            int[] row = candidate.row;
+            if (x.left != null) {
+                candidates.add(new Candidate(candidate.edits, x.left.max, candidate.string, x.left, row));
+            }
+            if (x.right != null) {
+                candidates.add(new Candidate(candidate.edits, x.right.max, candidate.string, x.right, row));
+            }
+            int n = prefix.length();
+            int[] next = new int[n + 1];
+            next[0] = row[0] + 1;
+            int least = next[0];
+            for (int j = 1; j <= n; j += 1) {
+                int substitution = row[j - 1] + (prefix.charAt(j - 1) == x.data ? 0 : 1);
+                next[j] = Math.min(substitution, Math.min(row[j], next[j - 1]) + 1);
+                least = Math.min(least, next[j]);
+            }
+            String string = candidate.string + x.data;
+            int edits = next[n];
+            if (edits <= maxEdits) {
+                if (x.isTerm) {
+                    candidates.add(new Candidate(edits, x.weight, string, null));
+                }
+                if (x.mid != null) {
+                    candidates.add(new Candidate(edits, x.mid.max, string, x.mid));
+                }
+            }
+            // Descend only while a longer path could still match the whole prefix with fewer edits than this one.
+            if (x.mid != null && least < Math.min(edits, maxEdits + 1)) {
+                candidates.add(new Candidate(least, x.mid.max, string, x.mid, next));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A term, or a subtree whose terms all start with the given string, ordered by increasing number of edits, then by
+     * decreasing weight, and then by increasing string. For a subtree not yet intersected with the automaton, the
+     * edits and weight bound those of every match inside it, so it never comes out after any of them.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        /**
+         * The number of edits between the query and the prefix matched by this candidate.
+         */
+        private final int edits;
+        private final double weight;
+        private final String string;
+        /**
+         * The root of the subtree, or null if this candidate is the term itself.
+         */
+        private final Node node;
+        /**
+         * The edit distances from each prefix of the query to the string if the subtree is not yet intersected with
+         * the automaton, or null.
+         */
+        private final int[] row;
+
+        Candidate(int edits, double weight, String string, Node node) {
+            this(edits, weight, string, node, null);
+        }
+
+        Candidate(int edits, double weight, String string, Node node, int[] row) {
+            this.edits = edits;
+            this.weight = weight;
+            this.string = string;
+            this.node = node;
+            this.row = row;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int result = Integer.compare(edits, other.edits);
+            if (result == 0) {
+                result = Double.compare(other.weight, weight);
+            }
+            return result != 0 ? result : string.compareTo(other.string);
+        }
+    }
+}
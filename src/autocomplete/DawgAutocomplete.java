@@ -0,0 +1,409 @@
+package autocomplete;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Directed acyclic word graph (DAWG) implementation of the {@link Autocomplete} interface: the minimal deterministic
+ * automaton accepting the terms, in which terms share both their prefixes and their suffixes. The automaton is built in
+ * one pass over the sorted terms with Daciuk's incremental algorithm and stored in four flat buffers rather than one
+ * object per term or character, so it can be saved to a file and memory-mapped for instant startup.
+ *
+ * @see Autocomplete
+ * @see <a href="https://aclanthology.org/J00-1002/">Daciuk et al., Incremental Construction of Minimal Acyclic
+ * Finite-State Automata</a>
+ */
+public class DawgAutocomplete implements Autocomplete {
+    /**
+     * The first 4 bytes of a saved automaton.
+     */
+    private static final int MAGIC = 0x44415747;
+    /**
+     * The number of ints before the buffers in a saved automaton: magic, state count, arc count, and root.
+     */
+    private static final int HEADER_INTS = 4;
+    /**
+     * The index of the first arc of each state, plus the total number of arcs at the end. The arcs of a state are
+     * contiguous and sorted by label.
+     */
+    private IntBuffer arcStart;
+    /**
+     * The state each arc leads to.
+     */
+    private IntBuffer arcTarget;
+    /**
+     * The character of each arc.
+     */
+    private CharBuffer arcLabel;
+    /**
+     * One bit per state, set if the state ends a term.
+     */
+    private ByteBuffer finals;
+    private int root;
+
+    /**
+     * Constructs an empty instance.
+     */
+    public DawgAutocomplete() {
+        build(List.of());
+    }
+
+    /**
+     * Constructs an instance from the buffers of a saved automaton.
+     *
+     * @param buffer the contents of a file written by {@link #save(Path)}.
+     * @throws IllegalArgumentException if the buffer does not hold a saved automaton.
+     */
+    private DawgAutocomplete(ByteBuffer buffer) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < 4 * HEADER_INTS || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a saved DAWG");
+        }
+        int states = buffer.getInt(4);
+        int arcs = buffer.getInt(8);
+        root = buffer.getInt(12);
+        int offset = 4 * HEADER_INTS;
+        arcStart = buffer.slice(offset, 4 * (states + 1)).asIntBuffer();
+        offset += 4 * (states + 1);
+        arcTarget = buffer.slice(offset, 4 * arcs).asIntBuffer();
+        offset += 4 * arcs;
+        arcLabel = buffer.slice(offset, 2 * arcs).asCharBuffer();
+        offset += 2 * arcs;
+        finals = buffer.slice(offset, (states + 7) / 8);
+    }
+
+    /**
+     * Returns the automaton saved in the file, memory-mapped rather than read so that it is ready immediately and its
+     * pages are loaded by the operating system on demand. Adding terms to the returned instance rebuilds it in memory.
+     *
+     * @param path the file written by {@link #save(Path)}.
+     * @return the saved automaton.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file does not hold a saved automaton.
+     */
+    public static DawgAutocomplete map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new DawgAutocomplete(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes this automaton to the file so that it can be loaded with {@link #map(Path)}.
+     *
+     * @param path the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path path) throws IOException {
+        int states = arcStart.limit() - 1;
+        int arcs = arcTarget.limit();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * HEADER_INTS + 4 * (states + 1) + 4 * arcs + 2 * arcs
+                + finals.limit()).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC).putInt(states).putInt(arcs).putInt(root);
+        for (int i = 0; i <= states; i += 1) {
+            buffer.putInt(arcStart.get(i));
+        }
+        for (int i = 0; i < arcs; i += 1) {
+            buffer.putInt(arcTarget.get(i));
+        }
+        for (int i = 0; i < arcs; i += 1) {
+            buffer.putChar(arcLabel.get(i));
+        }
+        for (int i = 0; i < finals.limit(); i += 1) {
+            buffer.put(finals.get(i));
+        }
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * Adds the terms by rebuilding the automaton from the union of the old and new terms, since a minimal automaton
+     * can only be built incrementally from sorted input. Add all terms at once where possible.
+     *
+     * @param terms collection containing elements to be added.
+     */
+    @Override
+    public void addAll(Collection<? extends CharSequence> terms) {
+        TreeSet<String> sorted = new TreeSet<>();
+        collect(root, new StringBuilder(), sorted);
+        for (CharSequence term : terms) {
+            if (term.length() > 0) {
+                sorted.add(term.toString());
+            }
+        }
+        build(sorted);
+    }
+
+    @Override
+    public List<CharSequence> allMatches(CharSequence prefix) {
+        List<CharSequence> result = new ArrayList<>();
+        if (prefix == null || prefix.length() == 0) {
+            return result;
+        }
+        int state = root;
+        for (int i = 0; i < prefix.length() && state != -1; i += 1) {
+            state = next(state, prefix.charAt(i));
+        }
+        if (state != -1) {
+            collect(state, new StringBuilder(prefix), result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of states in this automaton.
+     *
+     * @return the number of states.
+     */
+    public int stateCount() {
+        return arcStart.limit() - 1;
+    }
+
+    /**
+     * Returns the number of arcs in this automaton.
+     *
+     * @return the number of arcs.
+     */
+    public int arcCount() {
+        return arcTarget.limit();
+    }
+
+    /**
+     * Returns the state reached from the given state by the arc with the given label, or -1 if there is none.
+     *
+     * @param state the state to leave.
+     * @param label the character of the arc.
+     * @return the state reached, or -1.
+     */
+    private int next(int state, char label) {
+        int lo = arcStart.get(state);
+        int hi = arcStart.get(state + 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char c = arcLabel.get(mid);
+            if (c < label) {
+                lo = mid + 1;
+            } else if (c > label) {
+                hi = mid - 1;
+            } else {
+                return arcTarget.get(mid);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the state ends a term.
+     *
+     * @param state the state of interest.
+     * @return true if the state ends a term.
+     */
+    private boolean isFinal(int state) {
+        return (finals.get(state >>> 3) & (1 << (state & 7))) != 0;
+    }
+
+    /**
+     * Adds every term accepted from the state to the result in sorted order.
+     *
+     * @param state  the state reached by the prefix.
+     * @param prefix the characters leading to the state.
+     * @param result the collection of terms.
+     */
+    private void collect(int state, StringBuilder prefix, Collection<? super String> result) {
+        if (isFinal(state)) {
+            result.add(prefix.toString());
+        }
+        for (int arc = arcStart.get(state); arc < arcStart.get(state + 1); arc += 1) {
+            prefix.append(arcLabel.get(arc));
+            collect(arcTarget.get(arc), prefix, result);
+            prefix.deleteCharAt(prefix.length() - 1);
+        }
+    }
+
+    /**
+     * Replaces this automaton with the minimal automaton accepting the given terms.
+     *
+     * @param sorted the distinct non-empty terms in increasing order.
+     */
+    private void build(Collection<String> sorted) {
+        Builder builder = new Builder();
+        for (String term : sorted) {
+            builder.add(term);
+        }
+        root = builder.finish();
+        arcStart = IntBuffer.wrap(Arrays.copyOf(builder.arcStart, builder.states + 1));
+        arcTarget = IntBuffer.wrap(Arrays.copyOf(builder.arcTarget, builder.arcs));
+        arcLabel = CharBuffer.wrap(Arrays.copyOf(builder.arcLabel, builder.arcs));
+        finals = ByteBuffer.wrap(Arrays.copyOf(builder.finals, (builder.states + 7) / 8));
+    }
+
+    /**
+     * Incremental construction of a minimal automaton from sorted terms. The states along the path of the previous
+     * term are still mutable; when the next term diverges from it, the states past the common prefix can no longer
+     * change, so each is replaced by an equivalent registered state or else registered and frozen into the arrays.
+     */
+    private static class Builder {
+        /**
+         * Registered states by their signature: whether they are final, and their arc labels and targets.
+         */
+        private final Map<Signature, Integer> register;
+        /**
+         * The mutable states along the path of the previous term, starting with the root.
+         */
+        private final List<MutableState> path;
+        private String previous;
+        private int[] arcStart;
+        private int[] arcTarget;
+        private char[] arcLabel;
+        private byte[] finals;
+        private int states;
+        private int arcs;
+
+        Builder() {
+            register = new HashMap<>();
+            path = new ArrayList<>();
+            path.add(new MutableState());
+            previous = "";
+            arcStart = new int[16];
+            arcTarget = new int[16];
+            arcLabel = new char[16];
+            finals = new byte[2];
+        }
+
+        /**
+         * Adds the term, which must be greater than every term added before.
+         *
+         * @param term the term to add.
+         * @throws IllegalArgumentException if the term is not greater than the previous term.
+         */
+        void add(String term) {
+            if (term.compareTo(previous) <= 0) {
+                throw new IllegalArgumentException("Terms must be distinct and sorted: " + term);
+            }
+            int common = 0;
+            while (common < previous.length() && common < term.length()
+                    && previous.charAt(common) == term.charAt(common)) {
+                common += 1;
+            }
+            freeze(common);
+            for (int i = common; i < term.length(); i += 1) {
+                MutableState child = new MutableState();
+                path.get(i).labels.append(term.charAt(i));
+                path.add(child);
+            }
+            path.get(term.length()).isFinal = true;
+            previous = term;
+        }
+
+        /**
+         * Freezes the remaining path and returns the root.
+         *
+         * @return the id of the root state.
+         */
+        int finish() {
+            freeze(0);
+            return freeze(path.remove(0));
+        }
+
+        /**
+         * Freezes the states on the path deeper than the given depth, from the deepest up, and records each frozen
+         * state as the target of the last arc of its parent.
+         *
+         * @param depth the number of characters of the path to keep mutable.
+         */
+        private void freeze(int depth) {
+            while (path.size() > depth + 1) {
+                MutableState state = path.remove(path.size() - 1);
+                path.get(path.size() - 1).targets.add(freeze(state));
+            }
+        }
+
+        /**
+         * Returns the id of a registered state equivalent to the given state, registering it if there is none.
+         *
+         * @param state the state whose arcs all lead to registered states.
+         * @return the id of the equivalent registered state.
+         */
+        private int freeze(MutableState state) {
+            Signature signature = new Signature(state.isFinal, state.labels.toString(),
+                    state.targets.stream().mapToInt(Integer::intValue).toArray());
+            Integer existing = register.get(signature);
+            if (existing != null) {
+                return existing;
+            }
+            int id = states;
+            states += 1;
+            if (states + 1 > arcStart.length) {
+                arcStart = Arrays.copyOf(arcStart, 2 * arcStart.length);
+            }
+            if (states > 8 * finals.length) {
+                finals = Arrays.copyOf(finals, 2 * finals.length);
+            }
+            int count = signature.labels.length();
+            if (arcs + count > arcTarget.length) {
+                int capacity = Math.max(2 * arcTarget.length, arcs + count);
+                arcTarget = Arrays.copyOf(arcTarget, capacity);
+                arcLabel = Arrays.copyOf(arcLabel, capacity);
+            }
+            arcStart[id] = arcs;
+            for (int i = 0; i < count; i += 1) {
+                arcLabel[arcs] = signature.labels.charAt(i);
+                arcTarget[arcs] = signature.targets[i];
+                arcs += 1;
+            }
+            arcStart[id + 1] = arcs;
+            if (state.isFinal) {
+                finals[id >>> 3] |= (byte) (1 << (id & 7));
+            }
+            register.put(signature, id);
+            return id;
+        }
+    }
+
+    /**
+     * A state under construction, whose arc labels are in increasing order. Every arc but the last leads to a
+     * registered state.
+     */
+    private static class MutableState {
+        private final StringBuilder labels;
+        private final List<Integer> targets;
+        private boolean isFinal;
+
+        MutableState() {
+            labels = new StringBuilder();
+            targets = new ArrayList<>();
+        }
+    }
+
+    /**
+     * The right language of a registered state, which determines it up to equivalence.
+     */
+    private static class Signature {
+        private final boolean isFinal;
+        private final String labels;
+        private final int[] targets;
+
+        Signature(boolean isFinal, String labels, int[] targets) {
+            this.isFinal = isFinal;
+            this.labels = labels;
+            this.targets = targets;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature other && isFinal == other.isFinal && labels.equals(other.labels)
+                    && Arrays.equals(targets, other.targets);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Boolean.hashCode(isFinal) + labels.hashCode()) + Arrays.hashCode(targets);
+        }
+    }
+}
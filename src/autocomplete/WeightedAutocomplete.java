@@ -0,0 +1,43 @@
+package autocomplete;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Autocomplete} that also ranks its terms by weight, so that the best matches for a prefix can be found without
+ * collecting every match. Terms added without a weight have weight 0.
+ *
+ * @see Autocomplete
+ * @see CompletionTrieAutocomplete
+ */
+public interface WeightedAutocomplete extends Autocomplete {
+    /**
+     * Adds the given autocompletion terms with their weights, replacing the weights of terms already added.
+     *
+     * @param weights map from each term to its weight.
+     */
+    void addAll(Map<? extends CharSequence, ? extends Number> weights);
+
+    /**
+     * Returns the terms with the greatest weights that match the given prefix, in order of decreasing weight and then
+     * of increasing term.
+     *
+     * @param prefix search query.
+     * @param k      the maximum number of terms to return.
+     * @return a list of at most k matching terms, best first.
+     */
+    List<CharSequence> topMatches(CharSequence prefix, int k);
+
+    /**
+     * Returns the terms with the greatest weights that start with a string within the given number of edits of the
+     * prefix, where an edit inserts, deletes, or substitutes one character. Terms are ordered by increasing number of
+     * edits, then by decreasing weight, and then by increasing term, so exact prefix matches come first.
+     *
+     * @param prefix   search query, which may contain typos.
+     * @param maxEdits the maximum number of edits, from 0 to 2.
+     * @param k        the maximum number of terms to return.
+     * @return a list of at most k matching terms, best first.
+     * @throws IllegalArgumentException if maxEdits is negative or greater than 2.
+     */
+    List<CharSequence> fuzzyTopMatches(CharSequence prefix, int maxEdits, int k);
+}
@@ -0,0 +1,186 @@
+package cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe cache that evicts the least-recently-used entry when full and optionally expires entries after
+ * a fixed time-to-live. Hits and misses are counted so that callers can report the cache's effectiveness.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of cached values.
+ */
+public class LRUCache<K, V> {
+    /**
+     * {@link LinkedHashMap} in access order so that the eldest entry is always the least-recently-used.
+     */
+    private final LinkedHashMap<K, Entry<V>> entries;
+    /**
+     * The maximum number of entries in this cache.
+     */
+    private final int capacity;
+    /**
+     * The number of milliseconds an entry remains valid, or 0 if entries never expire.
+     */
+    private final long ttlMillis;
+    /**
+     * The number of times this cache has been cleared, so that values computed from stale data are not cached.
+     */
+    private long generation;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs an empty cache with the given capacity whose entries never expire.
+     *
+     * @param capacity the maximum number of entries.
+     */
+    public LRUCache(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * Constructs an empty cache with the given capacity and time-to-live.
+     *
+     * @param capacity  the maximum number of entries.
+     * @param ttlMillis the number of milliseconds an entry remains valid, or 0 if entries never expire.
+     * @throws IllegalArgumentException if capacity is not positive or ttlMillis is negative.
+     */
+    public LRUCache(int capacity, long ttlMillis) {
+        if (capacity <= 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity + " or TTL " + ttlMillis);
+        }
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LRUCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the value associated with the key, or null if the key is absent or its entry has expired.
+     *
+     * @param key the key to look up.
+     * @return the value associated with the key, or null.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && isExpired(entry)) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses += 1;
+            return null;
+        }
+        hits += 1;
+        return entry.value;
+    }
+
+    /**
+     * Associates the value with the key, evicting the least-recently-used entry if this cache is full.
+     *
+     * @param key   the key.
+     * @param value the value, which must not be null.
+     */
+    public synchronized void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not cached");
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns the value associated with the key, computing and caching it on a miss. The computation runs without
+     * holding the lock, so concurrent misses on the same key may each compute the value. If this cache is cleared while
+     * the value is being computed, the value is returned but not cached, since it may be computed from stale data.
+     *
+     * @param key     the key to look up.
+     * @param compute the function for computing the value on a miss.
+     * @return the cached or newly-computed value.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> compute) {
+        long start;
+        synchronized (this) {
+            start = generation;
+        }
+        V value = get(key);
+        if (value == null) {
+            value = compute.apply(key);
+            synchronized (this) {
+                if (generation == start) {
+                    put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes all entries from this cache, including entries still being computed. Hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        generation += 1;
+    }
+
+    /**
+     * Returns the number of entries in this cache, including expired entries not yet removed.
+     *
+     * @return the number of entries in this cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a valid entry.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a valid entry.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits, or 0 if there have been no lookups.
+     *
+     * @return the cache hit rate.
+     */
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.createdMillis > ttlMillis;
+    }
+
+    /**
+     * A cached value with the time it was inserted.
+     *
+     * @param <V> the type of the cached value.
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final long createdMillis;
+
+        Entry(V value, long createdMillis) {
+            this.value = value;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
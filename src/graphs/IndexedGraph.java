@@ -0,0 +1,357 @@
+package graphs;
+
+import java.util.*;
+
+/**
+ * {@link IntAStarGraph} adapter that maps the vertices of a {@link Graph} to integer ids once and stores its edges in
+ * compressed sparse row arrays. Vertices are numbered in the order they are given, followed by any other vertices
+ * reachable from them in breadth-first order. If the graph is an {@link AStarGraph}, its heuristic is used for
+ * {@link #estimatedDistance(int, int)}; otherwise, the estimate is always 0.
+ *
+ * @param <V> the type of vertices in the original graph.
+ * @see Graph
+ * @see IntGraph
+ */
+public class IndexedGraph<V> implements IntAStarGraph {
+    /**
+     * {@link List} of vertices indexed by id.
+     */
+    private final List<V> vertices;
+    /**
+     * {@link Map} of vertices to their ids.
+     */
+    private final Map<V, Integer> ids;
+    /**
+     * The outgoing edges of vertex v are the indices from offsets[v] up to but not including offsets[v + 1].
+     */
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final AStarGraph<V> heuristic;
+
+    /**
+     * Constructs an indexed copy of the given graph containing the given vertices and every vertex reachable from them.
+     *
+     * @param graph    the input graph.
+     * @param vertices the vertices to number first, in order.
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedGraph(Graph<V> graph, Collection<? extends V> vertices) {
+        this.vertices = new ArrayList<>(vertices.size());
+        this.ids = new HashMap<>();
+        for (V vertex : vertices) {
+            addVertex(vertex);
+        }
+        int[] offsets = new int[this.vertices.size() + 1];
+        int[] targets = new int[this.vertices.size()];
+        double[] weights = new double[this.vertices.size()];
+        int edgeCount = 0;
+        // New vertices are appended as they are discovered, so this loop also visits everything reachable.
+        for (int v = 0; v < this.vertices.size(); v += 1) {
+            if (v + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+            }
+            offsets[v] = edgeCount;
+            for (Edge<V> e : graph.neighbors(this.vertices.get(v))) {
+                if (edgeCount == targets.length) {
+                    targets = Arrays.copyOf(targets, Math.max(1, 2 * targets.length));
+                    weights = Arrays.copyOf(weights, targets.length);
+                }
+                targets[edgeCount] = addVertex(e.to);
+                weights[edgeCount] = e.weight;
+                edgeCount += 1;
+            }
+        }
+        offsets[this.vertices.size()] = edgeCount;
+        this.offsets = Arrays.copyOf(offsets, this.vertices.size() + 1);
+        this.targets = Arrays.copyOf(targets, edgeCount);
+        this.weights = Arrays.copyOf(weights, edgeCount);
+        this.heuristic = graph instanceof AStarGraph ? (AStarGraph<V>) graph : null;
+    }
+
+    /**
+     * Constructs an indexed graph from its arrays, which are not copied.
+     *
+     * @param vertices  the vertices indexed by id.
+     * @param ids       the ids of the vertices.
+     * @param offsets   the start of the outgoing edges of each vertex, followed by the number of edges.
+     * @param targets   the target of each edge.
+     * @param weights   the weight of each edge.
+     * @param heuristic the graph providing the heuristic, or null.
+     */
+    private IndexedGraph(List<V> vertices, Map<V, Integer> ids, int[] offsets, int[] targets, double[] weights,
+                         AStarGraph<V> heuristic) {
+        this.vertices = vertices;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Returns a copy of this graph with its vertices renumbered in the given order, so that vertex order[i] of this
+     * graph becomes vertex i of the copy. Searches touch the arrays in id order, so numbering nearby vertices close
+     * together, as with {@link #hilbertOrder(double[], double[])}, makes them much more cache-friendly. The outgoing
+     * edges of each vertex keep their relative order.
+     *
+     * @param order the ids of this graph in their new order.
+     * @return a copy of this graph with its vertices renumbered.
+     * @throws IllegalArgumentException if the order is not a permutation of the ids.
+     */
+    public IndexedGraph<V> reordered(int[] order) {
+        int n = vertices.size();
+        if (order.length != n) {
+            throw new IllegalArgumentException("Need one position per vertex");
+        }
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < n; i += 1) {
+            if (order[i] < 0 || order[i] >= n || position[order[i]] != -1) {
+                throw new IllegalArgumentException("Not a permutation: " + order[i]);
+            }
+            position[order[i]] = i;
+        }
+        List<V> newVertices = new ArrayList<>(n);
+        Map<V, Integer> newIds = new HashMap<>();
+        int[] newOffsets = new int[n + 1];
+        int[] newTargets = new int[targets.length];
+        double[] newWeights = new double[weights.length];
+        for (int i = 0; i < n; i += 1) {
+            int v = order[i];
+            newVertices.add(vertices.get(v));
+            newIds.put(vertices.get(v), i);
+            int count = offsets[v + 1] - offsets[v];
+            for (int k = 0; k < count; k += 1) {
+                newTargets[newOffsets[i] + k] = position[targets[offsets[v] + k]];
+                newWeights[newOffsets[i] + k] = weights[offsets[v] + k];
+            }
+            newOffsets[i + 1] = newOffsets[i] + count;
+        }
+        return new IndexedGraph<>(newVertices, newIds, newOffsets, newTargets, newWeights, heuristic);
+    }
+
+    /**
+     * Returns the ids of the points sorted along a Hilbert curve over their bounding box. The curve visits every cell
+     * of a grid without jumping, so points that are close on the curve are close in the plane.
+     *
+     * @param x the x-coordinate of each point, such as longitude.
+     * @param y the y-coordinate of each point, such as latitude.
+     * @return the ids of the points in Hilbert-curve order.
+     */
+    public static int[] hilbertOrder(double[] x, double[] y) {
+        int n = x.length;
+        double minX = Arrays.stream(x).min().orElse(0);
+        double maxX = Arrays.stream(x).max().orElse(0);
+        double minY = Arrays.stream(y).min().orElse(0);
+        double maxY = Arrays.stream(y).max().orElse(0);
+        // Curve indices are below side * side = 2^30, so they fit above the ids without reaching the sign bit.
+        int side = 1 << 15;
+        double scaleX = maxX > minX ? (side - 1) / (maxX - minX) : 0;
+        double scaleY = maxY > minY ? (side - 1) / (maxY - minY) : 0;
+        // Sort by curve index in the high bits and break ties by id in the low bits.
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i += 1) {
+            int cx = (int) ((x[i] - minX) * scaleX);
+            int cy = (int) ((y[i] - minY) * scaleY);
+            keys[i] = (hilbertIndex(side, cx, cy) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Returns the distance along the Hilbert curve of the given grid cell.
+     *
+     * @param side the number of cells along each side of the grid, a power of 2.
+     * @param x    the column of the cell.
+     * @param y    the row of the cell.
+     * @return the distance along the curve, less than side * side.
+     */
+    private static long hilbertIndex(int side, int x, int y) {
+        long d = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // Rotate the quadrant so that the curve inside it has the standard orientation.
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Returns the ids of the graph in breadth-first order, starting from vertex 0 and restarting from the lowest
+     * unvisited id whenever the queue runs out. Neighbors get nearby ids, which helps graphs without coordinates.
+     *
+     * @param graph the input graph.
+     * @return the ids of the graph in breadth-first order.
+     */
+    public static int[] breadthFirstOrder(IntGraph graph) {
+        int n = graph.size();
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int head = 0;
+        int tail = 0;
+        for (int root = 0; root < n; root += 1) {
+            if (visited[root]) {
+                continue;
+            }
+            visited[root] = true;
+            order[tail] = root;
+            tail += 1;
+            while (head < tail) {
+                int v = order[head];
+                head += 1;
+                for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e += 1) {
+                    int to = graph.to(e);
+                    if (!visited[to]) {
+                        visited[to] = true;
+                        order[tail] = to;
+                        tail += 1;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns a copy of this graph with the given edge weights. The copy shares the vertices and edges of this graph,
+     * so edge ids are the same in both, and this graph is unchanged. Closed edges can be given infinite weight.
+     *
+     * @param weights the weight of each edge, indexed like the edges of this graph.
+     * @return a copy of this graph with the given edge weights.
+     * @throws IllegalArgumentException if there is not one nonnegative weight per edge.
+     */
+    public IndexedGraph<V> withWeights(double[] weights) {
+        if (weights.length != targets.length) {
+            throw new IllegalArgumentException("Need one weight per edge");
+        }
+        double[] copy = Arrays.copyOf(weights, weights.length);
+        for (double weight : copy) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Weights must be nonnegative: " + weight);
+            }
+        }
+        return new IndexedGraph<>(vertices, ids, offsets, targets, copy, heuristic);
+    }
+
+    /**
+     * Returns the weight of every edge.
+     *
+     * @return a new array of the weight of each edge.
+     */
+    public double[] weights() {
+        return Arrays.copyOf(weights, weights.length);
+    }
+
+    /**
+     * Returns the id of the given vertex, assigning the next id if the vertex is new.
+     *
+     * @param vertex the vertex to number.
+     * @return the id of the given vertex.
+     */
+    private int addVertex(V vertex) {
+        Integer id = ids.get(vertex);
+        if (id == null) {
+            id = vertices.size();
+            ids.put(vertex, id);
+            vertices.add(vertex);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the given vertex, or -1 if the vertex is not in this graph.
+     *
+     * @param vertex the vertex of interest.
+     * @return the id of the given vertex, or -1.
+     */
+    public int id(V vertex) {
+        return ids.getOrDefault(vertex, -1);
+    }
+
+    /**
+     * Returns the vertex with the given id.
+     *
+     * @param id the id of interest.
+     * @return the vertex with the given id.
+     */
+    public V vertex(int id) {
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns all vertices in this graph, indexed by id.
+     *
+     * @return an unmodifiable view of the vertices indexed by id.
+     */
+    public List<V> vertices() {
+        return Collections.unmodifiableList(vertices);
+    }
+
+    /**
+     * Returns the vertices with the given ids, in order.
+     *
+     * @param ids the ids of interest, such as a path returned by an {@link graphs.shortestpaths.IntShortestPathSolver}.
+     * @return a list of the vertices with the given ids.
+     */
+    public List<V> vertices(int[] ids) {
+        List<V> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(vertices.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return vertices.size();
+    }
+
+    @Override
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public int edgeStart(int vertex) {
+        return offsets[vertex];
+    }
+
+    @Override
+    public int edgeEnd(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    @Override
+    public int to(int edge) {
+        return targets[edge];
+    }
+
+    @Override
+    public double weight(int edge) {
+        return weights[edge];
+    }
+
+    @Override
+    public double estimatedDistance(int start, int end) {
+        if (heuristic == null) {
+            return 0.0;
+        }
+        return heuristic.estimatedDistance(vertices.get(start), vertices.get(end));
+    }
+}
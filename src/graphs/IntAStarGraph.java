@@ -0,0 +1,21 @@
+package graphs;
+
+import graphs.shortestpaths.IntAStarSolver;
+
+/**
+ * {@link IntGraph} with a heuristic function to estimate distances between vertices.
+ *
+ * @see IntGraph
+ * @see AStarGraph
+ * @see IntAStarSolver
+ */
+public interface IntAStarGraph extends IntGraph {
+    /**
+     * Returns an estimated distance from start to end.
+     *
+     * @param start the beginning vertex.
+     * @param end   the destination vertex.
+     * @return an estimated distance from start to end.
+     */
+    double estimatedDistance(int start, int end);
+}
@@ -0,0 +1,66 @@
+package graphs;
+
+import graphs.shortestpaths.IntShortestPathSolver;
+
+/**
+ * Directed, edge-weighted graph whose vertices are the integers 0 through {@link #size()} - 1 and whose edges are the
+ * integers 0 through {@link #edgeCount()} - 1. The outgoing edges of each vertex are numbered contiguously, so callers
+ * can iterate them without allocating {@link Edge} objects:
+ * <pre>{@code
+ * for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e += 1) {
+ *     int to = graph.to(e);
+ *     double weight = graph.weight(e);
+ * }
+ * }</pre>
+ *
+ * @see Graph
+ * @see IndexedGraph
+ * @see IntShortestPathSolver
+ */
+public interface IntGraph {
+    /**
+     * Returns the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph.
+     */
+    int size();
+
+    /**
+     * Returns the number of edges in this graph.
+     *
+     * @return the number of edges in this graph.
+     */
+    int edgeCount();
+
+    /**
+     * Returns the first outgoing edge of the given vertex.
+     *
+     * @param vertex the vertex of interest.
+     * @return the first outgoing edge of the given vertex.
+     */
+    int edgeStart(int vertex);
+
+    /**
+     * Returns one past the last outgoing edge of the given vertex.
+     *
+     * @param vertex the vertex of interest.
+     * @return one past the last outgoing edge of the given vertex.
+     */
+    int edgeEnd(int vertex);
+
+    /**
+     * Returns the destination vertex of the given edge.
+     *
+     * @param edge the edge of interest.
+     * @return the destination vertex of the given edge.
+     */
+    int to(int edge);
+
+    /**
+     * Returns the weight of the given edge.
+     *
+     * @param edge the edge of interest.
+     * @return the weight of the given edge.
+     */
+    double weight(int edge);
+}
@@ -0,0 +1,31 @@
+package graphs;
+
+import graphs.shortestpaths.IntTimeDependentSolver;
+
+/**
+ * {@link IntGraph} whose edges take time to traverse depending on when they are entered. Arrival times must be FIFO:
+ * entering an edge later never leaves it earlier, which lets label-setting searches such as
+ * {@link IntTimeDependentSolver} settle each vertex once.
+ *
+ * @see IntGraph
+ * @see IntTimeDependentSolver
+ */
+public interface IntTimeDependentGraph extends IntGraph {
+    /**
+     * Returns the time of arriving at the end of the edge when entering it at the given time.
+     *
+     * @param edge      the edge index.
+     * @param departure the time of entering the edge in seconds.
+     * @return the time of leaving the edge in seconds, at least the departure time.
+     */
+    double arrivalTime(int edge, double departure);
+
+    /**
+     * Returns a lower bound on the travel time from start to end at any time of day.
+     *
+     * @param start the beginning vertex.
+     * @param end   the destination vertex.
+     * @return a lower bound on the travel time in seconds.
+     */
+    double estimatedTravelTime(int start, int end);
+}
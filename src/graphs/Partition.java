@@ -0,0 +1,360 @@
+package graphs;
+
+import java.util.*;
+
+/**
+ * Nested multi-level partition of the vertices of an {@link IntGraph} into cells of bounded size, computed by
+ * recursive bisection with inertial flow. To bisect a cell, its vertices are projected onto a few lines through the
+ * plane; for each line, the first and last quarter of the vertices along the line are joined to a source and a sink,
+ * and a minimum cut between them is found by unit-capacity max flow. The smallest cut over all lines is kept, so both
+ * halves hold at least a quarter of the vertices and few edges cross between them. Every cell at one level is a union
+ * of cells at the level below, so level 0 is the finest.
+ *
+ * @see IntGraph
+ * @see graphs.shortestpaths.MultiLevelOverlay
+ */
+public class Partition {
+    /**
+     * The fraction of vertices at each end of a projection that are fixed to either side of a bisection.
+     */
+    private static final double BALANCE = 0.25;
+    /**
+     * The angles of the projection lines tried for each bisection.
+     */
+    private static final double[] DIRECTIONS = {0, Math.PI / 4, Math.PI / 2, 3 * Math.PI / 4};
+    /**
+     * The cell of each vertex, indexed by level and then by vertex.
+     */
+    private final int[][] cells;
+    private final int[] cellCounts;
+    /**
+     * The outgoing and incoming neighbors of vertex v are adjacent[adjacentOffsets[v]] up to but not including
+     * adjacent[adjacentOffsets[v + 1]], so that cuts ignore edge direction.
+     */
+    private final int[] adjacentOffsets;
+    private final int[] adjacent;
+    private final double[] x;
+    private final double[] y;
+    /**
+     * The index of each vertex in the cell being bisected, or -1 for vertices outside the cell.
+     */
+    private final int[] local;
+
+    /**
+     * Constructs a partition of the given graph with one level per cell size.
+     *
+     * @param graph     the input graph.
+     * @param x         the x-coordinate of each vertex.
+     * @param y         the y-coordinate of each vertex.
+     * @param cellSizes the maximum number of vertices in a cell at each level, increasing from level 0.
+     * @throws IllegalArgumentException if the cell sizes are not positive and increasing or a coordinate is missing.
+     */
+    public Partition(IntGraph graph, double[] x, double[] y, int... cellSizes) {
+        int n = graph.size();
+        if (x.length != n || y.length != n) {
+            throw new IllegalArgumentException("Need coordinates for every vertex");
+        } else if (cellSizes.length == 0) {
+            throw new IllegalArgumentException("Need at least one level");
+        }
+        for (int level = 0; level < cellSizes.length; level += 1) {
+            if (cellSizes[level] < 2 || (level > 0 && cellSizes[level] <= cellSizes[level - 1])) {
+                throw new IllegalArgumentException("Cell sizes must be at least 2 and increasing: "
+                        + Arrays.toString(cellSizes));
+            }
+        }
+        this.x = x;
+        this.y = y;
+        this.local = new int[n];
+        Arrays.fill(local, -1);
+
+        // Build an undirected adjacency so that cuts count edges in either direction.
+        int[] degree = new int[n + 1];
+        for (int v = 0; v < n; v += 1) {
+            for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e += 1) {
+                if (graph.to(e) != v) {
+                    degree[v] += 1;
+                    degree[graph.to(e)] += 1;
+                }
+            }
+        }
+        adjacentOffsets = new int[n + 1];
+        for (int v = 0; v < n; v += 1) {
+            adjacentOffsets[v + 1] = adjacentOffsets[v] + degree[v];
+        }
+        adjacent = new int[adjacentOffsets[n]];
+        int[] next = Arrays.copyOf(adjacentOffsets, n);
+        for (int v = 0; v < n; v += 1) {
+            for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e += 1) {
+                int w = graph.to(e);
+                if (w != v) {
+                    adjacent[next[v]] = w;
+                    next[v] += 1;
+                    adjacent[next[w]] = v;
+                    next[w] += 1;
+                }
+            }
+        }
+
+        // Split the cells of each level, from the coarsest down, so that cells are nested.
+        cells = new int[cellSizes.length][n];
+        cellCounts = new int[cellSizes.length];
+        int[] all = new int[n];
+        for (int v = 0; v < n; v += 1) {
+            all[v] = v;
+        }
+        List<int[]> pieces = List.of(all);
+        for (int level = cellSizes.length - 1; level >= 0; level -= 1) {
+            List<int[]> result = new ArrayList<>();
+            for (int[] piece : pieces) {
+                split(piece, cellSizes[level], result);
+            }
+            for (int cell = 0; cell < result.size(); cell += 1) {
+                for (int v : result.get(cell)) {
+                    cells[level][v] = cell;
+                }
+            }
+            cellCounts[level] = result.size();
+            pieces = result;
+        }
+    }
+
+    /**
+     * Returns the number of levels in this partition.
+     *
+     * @return the number of levels in this partition.
+     */
+    public int levels() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the number of cells at the given level.
+     *
+     * @param level the level of interest.
+     * @return the number of cells at the level.
+     */
+    public int cellCount(int level) {
+        return cellCounts[level];
+    }
+
+    /**
+     * Returns the cell of the vertex at the given level.
+     *
+     * @param level  the level of interest.
+     * @param vertex the vertex of interest.
+     * @return the cell of the vertex at the level.
+     */
+    public int cell(int level, int vertex) {
+        return cells[level][vertex];
+    }
+
+    /**
+     * Bisects the piece until every part has at most the given number of vertices and adds the parts to the result.
+     *
+     * @param piece   the vertices to split.
+     * @param maxSize the maximum number of vertices in a part.
+     * @param result  the list of parts.
+     */
+    private void split(int[] piece, int maxSize, List<int[]> result) {
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(piece);
+        while (!stack.isEmpty()) {
+            int[] part = stack.pop();
+            if (part.length <= maxSize) {
+                result.add(part);
+            } else {
+                int[][] halves = bisect(part);
+                stack.push(halves[1]);
+                stack.push(halves[0]);
+            }
+        }
+    }
+
+    /**
+     * Returns the two halves of the minimum inertial-flow cut of the piece over all projection lines.
+     *
+     * @param piece the vertices to bisect, at least 2.
+     * @return the two nonempty halves of the piece.
+     */
+    private int[][] bisect(int[] piece) {
+        int n = piece.length;
+        for (int i = 0; i < n; i += 1) {
+            local[piece[i]] = i;
+        }
+        // Pair the two arcs of each undirected edge inside the piece: arc a is the reverse of arc a ^ 1.
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i += 1) {
+            int v = piece[i];
+            for (int k = adjacentOffsets[v]; k < adjacentOffsets[v + 1]; k += 1) {
+                if (local[adjacent[k]] != -1) {
+                    offsets[i + 1] += 1;
+                }
+            }
+        }
+        for (int i = 0; i < n; i += 1) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] heads = new int[offsets[n]];
+        int[] arcs = new int[offsets[n]];
+        int[] next = Arrays.copyOf(offsets, n);
+        int arcCount = 0;
+        for (int i = 0; i < n; i += 1) {
+            int v = piece[i];
+            for (int k = adjacentOffsets[v]; k < adjacentOffsets[v + 1]; k += 1) {
+                int j = local[adjacent[k]];
+                // Each undirected edge is listed at both ends, so only pair it from the lower end.
+                if (j > i) {
+                    heads[arcCount] = j;
+                    arcs[next[i]] = arcCount;
+                    next[i] += 1;
+                    heads[arcCount + 1] = i;
+                    arcs[next[j]] = arcCount + 1;
+                    next[j] += 1;
+                    arcCount += 2;
+                }
+            }
+        }
+        for (int v : piece) {
+            local[v] = -1;
+        }
+
+        boolean[] best = null;
+        int bestCut = Integer.MAX_VALUE;
+        int bestImbalance = Integer.MAX_VALUE;
+        int fixed = Math.max(1, (int) (n * BALANCE));
+        for (double angle : DIRECTIONS) {
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i += 1) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> x[piece[i]] * cos + y[piece[i]] * sin));
+            byte[] side = new byte[n];
+            for (int i = 0; i < fixed; i += 1) {
+                side[order[i]] = 1;
+                side[order[n - 1 - i]] = 2;
+            }
+            boolean[] sourceSide = new boolean[n];
+            int cut = minCut(offsets, arcs, heads, arcCount, side, bestCut, sourceSide);
+            if (cut > bestCut) {
+                continue;
+            }
+            int count = 0;
+            for (boolean s : sourceSide) {
+                if (s) {
+                    count += 1;
+                }
+            }
+            int imbalance = Math.abs(n - 2 * count);
+            if (count > 0 && count < n && (cut < bestCut || imbalance < bestImbalance)) {
+                best = sourceSide;
+                bestCut = cut;
+                bestImbalance = imbalance;
+            }
+        }
+        if (best == null) {
+            // Every cut was degenerate, so split the piece in half along the first direction.
+            best = new boolean[n];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i += 1) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> x[piece[i]]));
+            for (int i = 0; i < n / 2; i += 1) {
+                best[order[i]] = true;
+            }
+        }
+        int count = 0;
+        for (boolean s : best) {
+            if (s) {
+                count += 1;
+            }
+        }
+        int[] first = new int[count];
+        int[] second = new int[n - count];
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (best[i]) {
+                first[a] = piece[i];
+                a += 1;
+            } else {
+                second[b] = piece[i];
+                b += 1;
+            }
+        }
+        return new int[][]{first, second};
+    }
+
+    /**
+     * Computes a minimum cut between the source and sink vertices by augmenting along shortest residual paths, where
+     * every undirected edge has capacity 1. Stops early once the flow exceeds the given limit, since the cut can no
+     * longer beat the best cut so far.
+     *
+     * @param offsets    the arcs of local vertex i are arcs[offsets[i]] up to but not including arcs[offsets[i + 1]].
+     * @param arcs       the arc ids by vertex.
+     * @param heads      the head of each arc, where arc a is the reverse of arc a ^ 1.
+     * @param arcCount   the number of arcs.
+     * @param side       1 for source vertices, 2 for sink vertices, and 0 otherwise.
+     * @param limit      the flow beyond which to stop early.
+     * @param sourceSide filled with true for the vertices on the source side of the cut.
+     * @return the size of the cut, or a value greater than the limit if stopped early.
+     */
+    private static int minCut(int[] offsets, int[] arcs, int[] heads, int arcCount, byte[] side, int limit,
+                              boolean[] sourceSide) {
+        int n = side.length;
+        int[] flow = new int[arcCount];
+        int[] parentArc = new int[n];
+        int[] queue = new int[n];
+        int total = 0;
+        while (true) {
+            Arrays.fill(parentArc, -2);
+            int head = 0;
+            int tail = 0;
+            for (int i = 0; i < n; i += 1) {
+                if (side[i] == 1) {
+                    parentArc[i] = -1;
+                    queue[tail] = i;
+                    tail += 1;
+                }
+            }
+            int sink = -1;
+            while (head < tail && sink == -1) {
+                int v = queue[head];
+                head += 1;
+                for (int k = offsets[v]; k < offsets[v + 1]; k += 1) {
+                    int arc = arcs[k];
+                    if (flow[arc] >= 1) {
+                        continue;
+                    }
+                    int w = heads[arc];
+                    if (parentArc[w] == -2) {
+                        parentArc[w] = arc;
+                        if (side[w] == 2) {
+                            sink = w;
+                            break;
+                        }
+                        queue[tail] = w;
+                        tail += 1;
+                    }
+                }
+            }
+            if (sink == -1) {
+                // The vertices reached in the residual graph form the source side of a minimum cut.
+                for (int i = 0; i < n; i += 1) {
+                    sourceSide[i] = parentArc[i] != -2;
+                }
+                return total;
+            }
+            for (int v = sink; parentArc[v] != -1; v = heads[parentArc[v] ^ 1]) {
+                flow[parentArc[v]] += 1;
+                flow[parentArc[v] ^ 1] -= 1;
+            }
+            total += 1;
+            if (total > limit) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * {@link IntTimeDependentGraph} over an {@link IntAStarGraph} whose edge weights are lengths. Each edge stores only the
+ * one-byte id of its {@link SpeedProfile}, so every edge of the same road class shares a single profile.
+ *
+ * @see IntTimeDependentGraph
+ * @see SpeedProfile
+ */
+public class ProfiledGraph implements IntTimeDependentGraph {
+    private final IntAStarGraph graph;
+    /**
+     * The unsigned id of the speed profile of each edge.
+     */
+    private final byte[] profileIds;
+    private final SpeedProfile[] profiles;
+    /**
+     * The number of meters per unit of edge weight and estimated distance in the underlying graph.
+     */
+    private final double metersPerUnit;
+    /**
+     * The maximum speed over every profile, which turns estimated distances into travel-time lower bounds.
+     */
+    private final double maxSpeed;
+
+    /**
+     * Constructs a time-dependent view of the given graph.
+     *
+     * @param graph         the graph whose edge weights are lengths.
+     * @param profileIds    the unsigned id of the speed profile of each edge, indexed like the graph's edges.
+     * @param profiles      the speed profiles indexed by id, at most 256.
+     * @param metersPerUnit the number of meters per unit of edge weight.
+     * @throws IllegalArgumentException if the profile ids do not match the edges or refer to missing profiles.
+     */
+    public ProfiledGraph(IntAStarGraph graph, byte[] profileIds, SpeedProfile[] profiles, double metersPerUnit) {
+        if (profileIds.length != graph.edgeCount()) {
+            throw new IllegalArgumentException("Need one profile id per edge");
+        } else if (profiles.length == 0 || profiles.length > 256) {
+            throw new IllegalArgumentException("Need between 1 and 256 profiles");
+        }
+        for (byte id : profileIds) {
+            if (Byte.toUnsignedInt(id) >= profiles.length) {
+                throw new IllegalArgumentException("Unknown profile id " + Byte.toUnsignedInt(id));
+            }
+        }
+        this.graph = graph;
+        this.profileIds = profileIds;
+        this.profiles = Arrays.copyOf(profiles, profiles.length);
+        this.metersPerUnit = metersPerUnit;
+        this.maxSpeed = Arrays.stream(profiles).mapToDouble(SpeedProfile::maxSpeed).max().getAsDouble();
+    }
+
+    /**
+     * Constructs a copy of the given profiled graph over a reweighted copy of its underlying graph.
+     *
+     * @param profiled the profiled graph to copy.
+     * @param graph    the underlying graph with the same edges.
+     */
+    private ProfiledGraph(ProfiledGraph profiled, IntAStarGraph graph) {
+        this.graph = graph;
+        this.profileIds = profiled.profileIds;
+        this.profiles = profiled.profiles;
+        this.metersPerUnit = profiled.metersPerUnit;
+        this.maxSpeed = profiled.maxSpeed;
+    }
+
+    /**
+     * Returns a copy of this graph over the given graph, which must have the same edges as the underlying graph but may
+     * have different lengths, such as after a road closure. The speed profile ids are shared rather than copied.
+     *
+     * @param graph the underlying graph with the same edges.
+     * @return a copy of this graph over the given graph.
+     * @throws IllegalArgumentException if the graph has a different number of edges.
+     */
+    public ProfiledGraph withGraph(IntAStarGraph graph) {
+        if (graph.edgeCount() != profileIds.length) {
+            throw new IllegalArgumentException("Need one profile id per edge");
+        }
+        return new ProfiledGraph(this, graph);
+    }
+
+    /**
+     * Returns the speed profile of the given edge.
+     *
+     * @param edge the edge index.
+     * @return the speed profile of the edge.
+     */
+    public SpeedProfile profile(int edge) {
+        return profiles[Byte.toUnsignedInt(profileIds[edge])];
+    }
+
+    @Override
+    public double arrivalTime(int edge, double departure) {
+        return profile(edge).arrivalTime(departure, graph.weight(edge) * metersPerUnit);
+    }
+
+    @Override
+    public double estimatedTravelTime(int start, int end) {
+        return graph.estimatedDistance(start, end) * metersPerUnit / maxSpeed;
+    }
+
+    @Override
+    public int size() {
+        return graph.size();
+    }
+
+    @Override
+    public int edgeCount() {
+        return graph.edgeCount();
+    }
+
+    @Override
+    public int edgeStart(int vertex) {
+        return graph.edgeStart(vertex);
+    }
+
+    @Override
+    public int edgeEnd(int vertex) {
+        return graph.edgeEnd(vertex);
+    }
+
+    @Override
+    public int to(int edge) {
+        return graph.to(edge);
+    }
+
+    @Override
+    public double weight(int edge) {
+        return graph.weight(edge);
+    }
+}
@@ -0,0 +1,208 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * Piecewise-linear travel speed over the time of day, shared by every edge of the same road class. The speed between
+ * two breakpoints is interpolated linearly, and the profile repeats every day, so the last breakpoint interpolates back
+ * to the first breakpoint of the next day. Arrival times are found by integrating the speed over time, which keeps the
+ * profile FIFO: leaving later never arrives earlier.
+ *
+ * @see IntTimeDependentGraph
+ * @see ProfiledGraph
+ */
+public class SpeedProfile {
+    /**
+     * The number of seconds in a day, the period of every profile.
+     */
+    public static final double DAY_SECONDS = 24 * 60 * 60;
+    /**
+     * The time of day of each breakpoint in seconds since midnight, in increasing order.
+     */
+    private final double[] times;
+    /**
+     * The speed at each breakpoint in meters per second.
+     */
+    private final double[] speeds;
+    private final double maxSpeed;
+
+    /**
+     * Constructs a profile through the given breakpoints.
+     *
+     * @param times  the time of day of each breakpoint in seconds since midnight, in increasing order.
+     * @param speeds the positive speed at each breakpoint in meters per second.
+     * @throws IllegalArgumentException if the breakpoints are empty, unordered, outside the day, or not positive.
+     */
+    public SpeedProfile(double[] times, double[] speeds) {
+        if (times.length == 0 || times.length != speeds.length) {
+            throw new IllegalArgumentException("Need the same positive number of times and speeds");
+        }
+        for (int i = 0; i < times.length; i += 1) {
+            if (times[i] < 0 || times[i] >= DAY_SECONDS || (i > 0 && times[i] <= times[i - 1])) {
+                throw new IllegalArgumentException("Times must be increasing within a day: " + Arrays.toString(times));
+            } else if (!(speeds[i] > 0) || Double.isInfinite(speeds[i])) {
+                throw new IllegalArgumentException("Speeds must be positive: " + Arrays.toString(speeds));
+            }
+        }
+        this.times = Arrays.copyOf(times, times.length);
+        this.speeds = Arrays.copyOf(speeds, speeds.length);
+        this.maxSpeed = Arrays.stream(speeds).max().getAsDouble();
+    }
+
+    /**
+     * Returns a profile with the given constant speed.
+     *
+     * @param speed the speed in meters per second.
+     * @return a profile with the given constant speed.
+     */
+    public static SpeedProfile constant(double speed) {
+        return new SpeedProfile(new double[]{0}, new double[]{speed});
+    }
+
+    /**
+     * Returns a profile at the free-flow speed that slows down to the given fraction of it around the morning and
+     * evening rush hours, peaking at 8:00 and 17:30.
+     *
+     * @param freeFlow  the free-flow speed in meters per second.
+     * @param congested the fraction of the free-flow speed at the peak of each rush hour, in (0, 1].
+     * @return a profile with morning and evening rush hours.
+     */
+    public static SpeedProfile rushHour(double freeFlow, double congested) {
+        double hour = 60 * 60;
+        double slow = freeFlow * congested;
+        return new SpeedProfile(
+                new double[]{6.5 * hour, 8 * hour, 9.5 * hour, 16 * hour, 17.5 * hour, 19 * hour},
+                new double[]{freeFlow, slow, freeFlow, freeFlow, slow, freeFlow}
+        );
+    }
+
+    /**
+     * Returns this profile with every speed multiplied by the given factor, such as to match a posted speed limit.
+     *
+     * @param factor the positive factor.
+     * @return the scaled profile.
+     */
+    public SpeedProfile scaled(double factor) {
+        double[] result = new double[speeds.length];
+        for (int i = 0; i < speeds.length; i += 1) {
+            result[i] = speeds[i] * factor;
+        }
+        return new SpeedProfile(times, result);
+    }
+
+    /**
+     * Returns the maximum speed of this profile, which bounds the speed at every time of day.
+     *
+     * @return the maximum speed in meters per second.
+     */
+    public double maxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * Returns the speed at the given time.
+     *
+     * @param time the time in seconds since midnight of the first day, which may exceed a day.
+     * @return the speed in meters per second.
+     */
+    public double speed(double time) {
+        double dayStart = Math.floor(time / DAY_SECONDS) * DAY_SECONDS;
+        int i = segment(time - dayStart);
+        return speedIn(i, time - dayStart);
+    }
+
+    /**
+     * Returns the arrival time after traveling the given distance from the given departure time.
+     *
+     * @param departure the departure time in seconds since midnight of the first day, which may exceed a day.
+     * @param meters    the nonnegative distance in meters, or infinity for a closed road.
+     * @return the arrival time in seconds, at least the departure time.
+     */
+    public double arrivalTime(double departure, double meters) {
+        if (Double.isInfinite(meters)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (times.length == 1) {
+            return departure + meters / speeds[0];
+        }
+        double dayStart = Math.floor(departure / DAY_SECONDS) * DAY_SECONDS;
+        double t = departure - dayStart;
+        int i = segment(t);
+        double remaining = meters;
+        while (true) {
+            // Speed changes linearly from v at time t to the breakpoint at the end of this segment.
+            double end = i + 1 < times.length ? times[i + 1] : t < times[0] ? times[0] : times[0] + DAY_SECONDS;
+            double v = speedIn(i, t);
+            double slope = (speedAt(i + 1) - speedAt(i)) / segmentLength(i);
+            double dt = end - t;
+            double covered = v * dt + slope / 2 * dt * dt;
+            if (covered >= remaining) {
+                if (slope != 0) {
+                    // Solve v * dt + slope / 2 * dt^2 = remaining for the smallest positive dt.
+                    dt = 2 * remaining / (v + Math.sqrt(Math.max(0, v * v + 2 * slope * remaining)));
+                } else {
+                    dt = remaining / v;
+                }
+                return dayStart + t + dt;
+            }
+            remaining -= covered;
+            t = end;
+            i = i + 1 < times.length ? i + 1 : 0;
+            if (t >= DAY_SECONDS) {
+                dayStart += DAY_SECONDS;
+                t -= DAY_SECONDS;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the segment starting at or before the given time of day, where segment i runs from
+     * breakpoint i to breakpoint i + 1 and the last segment wraps around to the first breakpoint of the next day.
+     *
+     * @param t the time of day in seconds, in [0, {@link #DAY_SECONDS}).
+     * @return the index of the segment containing the time of day.
+     */
+    private int segment(double t) {
+        int i = Arrays.binarySearch(times, t);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        // Times before the first breakpoint belong to the wraparound segment of the previous day.
+        return i < 0 ? times.length - 1 : i;
+    }
+
+    /**
+     * Returns the speed at the given time of day, interpolated within the given segment.
+     *
+     * @param i the segment index.
+     * @param t the time of day in seconds, which may be before the first breakpoint for the wraparound segment.
+     * @return the speed in meters per second.
+     */
+    private double speedIn(int i, double t) {
+        double offset = t - times[i];
+        if (offset < 0) {
+            offset += DAY_SECONDS;
+        }
+        return speedAt(i) + (speedAt(i + 1) - speedAt(i)) * offset / segmentLength(i);
+    }
+
+    /**
+     * Returns the speed at the given breakpoint, wrapping around to the first breakpoint after the last.
+     *
+     * @param i the breakpoint index, at most the number of breakpoints.
+     * @return the speed in meters per second.
+     */
+    private double speedAt(int i) {
+        return speeds[i == speeds.length ? 0 : i];
+    }
+
+    /**
+     * Returns the duration of the given segment in seconds.
+     *
+     * @param i the segment index.
+     * @return the duration of the segment in seconds.
+     */
+    private double segmentLength(int i) {
+        return i + 1 < times.length ? times[i + 1] - times[i] : times[0] + DAY_SECONDS - times[i];
+    }
+}
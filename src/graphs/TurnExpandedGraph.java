@@ -0,0 +1,244 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * {@link IntGraph} of the allowed turns of another graph, so that any vertex-based algorithm obeys
+ * {@link TurnRestrictions} when run on it. The first {@link IntGraph#edgeCount()} vertices stand for the edges of the
+ * graph, meaning "arrived at the end of this edge", and there is an arc from edge e to edge f if f leaves the vertex
+ * that e enters and the turn from e to f is allowed. The arc into an edge carries the weight of that edge. Every vertex
+ * v of the graph also gets a departure vertex, with arcs to the edges leaving v, and an arrival vertex, with arcs from
+ * the edges entering v and from the departure vertex of v, so a path from the departure of s to the arrival of t is a
+ * route from s to t that makes only allowed turns.
+ * <p>
+ * Arcs store only the edge whose weight they carry, so {@link #withGraph(IntGraph)} reweights this graph for new edge
+ * weights without copying its structure, and {@link #arcs(int[])} lists the arcs affected by changed edges.
+ *
+ * @see TurnRestrictions
+ * @see graphs.shortestpaths.MultiLevelOverlay
+ */
+public class TurnExpandedGraph implements IntGraph {
+    private final IntGraph graph;
+    /**
+     * The arcs of vertex v are the integers from arcOffsets[v] up to but not including arcOffsets[v + 1].
+     */
+    private final int[] arcOffsets;
+    private final int[] heads;
+    /**
+     * The edge of the graph whose weight each arc carries, or -1 for arcs of weight 0 into arrival vertices.
+     */
+    private final int[] arcEdges;
+    /**
+     * The arcs carrying the weight of edge e are carriers[carrierOffsets[e]] up to but not including
+     * carriers[carrierOffsets[e + 1]].
+     */
+    private final int[] carrierOffsets;
+    private final int[] carriers;
+
+    /**
+     * Constructs the graph of the allowed turns of the given graph.
+     *
+     * @param graph        the input graph.
+     * @param restrictions the forbidden turns of the input graph.
+     */
+    public TurnExpandedGraph(IntGraph graph, TurnRestrictions restrictions) {
+        this.graph = graph;
+        int m = graph.edgeCount();
+        int n = graph.size();
+        int size = m + 2 * n;
+        arcOffsets = new int[size + 1];
+        for (int e = 0; e < m; e += 1) {
+            int via = graph.to(e);
+            int count = 1;
+            for (int f = graph.edgeStart(via); f < graph.edgeEnd(via); f += 1) {
+                if (restrictions.isAllowed(e, f)) {
+                    count += 1;
+                }
+            }
+            arcOffsets[e + 1] = arcOffsets[e] + count;
+        }
+        for (int v = 0; v < n; v += 1) {
+            arcOffsets[m + v + 1] = arcOffsets[m + v] + graph.edgeEnd(v) - graph.edgeStart(v) + 1;
+        }
+        for (int v = 0; v < n; v += 1) {
+            arcOffsets[m + n + v + 1] = arcOffsets[m + n + v];
+        }
+        heads = new int[arcOffsets[size]];
+        arcEdges = new int[arcOffsets[size]];
+        for (int e = 0; e < m; e += 1) {
+            int via = graph.to(e);
+            int arc = arcOffsets[e];
+            for (int f = graph.edgeStart(via); f < graph.edgeEnd(via); f += 1) {
+                if (restrictions.isAllowed(e, f)) {
+                    heads[arc] = f;
+                    arcEdges[arc] = f;
+                    arc += 1;
+                }
+            }
+            heads[arc] = arrival(via);
+            arcEdges[arc] = -1;
+        }
+        for (int v = 0; v < n; v += 1) {
+            int arc = arcOffsets[departure(v)];
+            for (int f = graph.edgeStart(v); f < graph.edgeEnd(v); f += 1) {
+                heads[arc] = f;
+                arcEdges[arc] = f;
+                arc += 1;
+            }
+            heads[arc] = arrival(v);
+            arcEdges[arc] = -1;
+        }
+        carrierOffsets = new int[m + 1];
+        for (int edge : arcEdges) {
+            if (edge != -1) {
+                carrierOffsets[edge + 1] += 1;
+            }
+        }
+        for (int e = 0; e < m; e += 1) {
+            carrierOffsets[e + 1] += carrierOffsets[e];
+        }
+        carriers = new int[carrierOffsets[m]];
+        int[] next = Arrays.copyOf(carrierOffsets, m);
+        for (int arc = 0; arc < arcEdges.length; arc += 1) {
+            if (arcEdges[arc] != -1) {
+                carriers[next[arcEdges[arc]]] = arc;
+                next[arcEdges[arc]] += 1;
+            }
+        }
+    }
+
+    /**
+     * Constructs a copy of the given turn-expanded graph that shares its structure but reads weights from the given
+     * graph.
+     *
+     * @param expanded the turn-expanded graph to copy.
+     * @param graph    the input graph with the same vertices and edges.
+     */
+    private TurnExpandedGraph(TurnExpandedGraph expanded, IntGraph graph) {
+        this.graph = graph;
+        this.arcOffsets = expanded.arcOffsets;
+        this.heads = expanded.heads;
+        this.arcEdges = expanded.arcEdges;
+        this.carrierOffsets = expanded.carrierOffsets;
+        this.carriers = expanded.carriers;
+    }
+
+    /**
+     * Returns a copy of this graph over the given graph, which must have the same vertices and edges as the input
+     * graph but may have different weights, such as after a road closure.
+     *
+     * @param graph the input graph with the new weights.
+     * @return a copy of this graph whose arcs carry the new weights.
+     * @throws IllegalArgumentException if the graph has a different number of vertices or edges.
+     */
+    public TurnExpandedGraph withGraph(IntGraph graph) {
+        if (graph.size() != this.graph.size() || graph.edgeCount() != this.graph.edgeCount()) {
+            throw new IllegalArgumentException("Need a graph with the same vertices and edges");
+        }
+        return new TurnExpandedGraph(this, graph);
+    }
+
+    /**
+     * Returns the departure vertex of the given vertex of the input graph, where routes from that vertex start.
+     *
+     * @param vertex the vertex of the input graph.
+     * @return the departure vertex in this graph.
+     */
+    public int departure(int vertex) {
+        return graph.edgeCount() + vertex;
+    }
+
+    /**
+     * Returns the arrival vertex of the given vertex of the input graph, where routes to that vertex end.
+     *
+     * @param vertex the vertex of the input graph.
+     * @return the arrival vertex in this graph.
+     */
+    public int arrival(int vertex) {
+        return graph.edgeCount() + graph.size() + vertex;
+    }
+
+    /**
+     * Returns the vertex of the input graph at which the given vertex of this graph is located: the end of an edge, or
+     * the vertex of a departure or arrival vertex.
+     *
+     * @param vertex the vertex of this graph.
+     * @return the vertex of the input graph.
+     */
+    public int location(int vertex) {
+        int m = graph.edgeCount();
+        if (vertex < m) {
+            return graph.to(vertex);
+        }
+        return (vertex - m) % graph.size();
+    }
+
+    /**
+     * Returns the route in the input graph for a path in this graph from a departure vertex to an arrival vertex. If
+     * the path only contains the arrival vertex, as solvers return for unreachable goals, so does the route.
+     *
+     * @param path the vertices of the path in this graph.
+     * @return the vertices of the route in the input graph.
+     */
+    public int[] route(int[] path) {
+        // The arrival vertex is located at the end of the edge before it, so it is dropped unless it stands alone.
+        int length = path.length > 1 ? path.length - 1 : path.length;
+        int[] result = new int[length];
+        for (int i = 0; i < length; i += 1) {
+            result[i] = location(path[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the arcs of this graph that carry the weight of any of the given edges of the input graph.
+     *
+     * @param edges the edges of the input graph.
+     * @return the arcs carrying the weights of the edges.
+     */
+    public int[] arcs(int[] edges) {
+        int count = 0;
+        for (int e : edges) {
+            count += carrierOffsets[e + 1] - carrierOffsets[e];
+        }
+        int[] result = new int[count];
+        int size = 0;
+        for (int e : edges) {
+            int length = carrierOffsets[e + 1] - carrierOffsets[e];
+            System.arraycopy(carriers, carrierOffsets[e], result, size, length);
+            size += length;
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return arcOffsets.length - 1;
+    }
+
+    @Override
+    public int edgeCount() {
+        return heads.length;
+    }
+
+    @Override
+    public int edgeStart(int vertex) {
+        return arcOffsets[vertex];
+    }
+
+    @Override
+    public int edgeEnd(int vertex) {
+        return arcOffsets[vertex + 1];
+    }
+
+    @Override
+    public int to(int edge) {
+        return heads[edge];
+    }
+
+    @Override
+    public double weight(int edge) {
+        int e = arcEdges[edge];
+        return e == -1 ? 0.0 : graph.weight(e);
+    }
+}
@@ -0,0 +1,80 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * Compact table of forbidden turns in an {@link IntGraph}, where a turn is a pair of edges entering and then leaving
+ * the same vertex. Each turn is packed into a single long and kept in a sorted array, so a table of <i>k</i> turns
+ * takes 8<i>k</i> bytes and each lookup is a binary search.
+ *
+ * @see IntGraph
+ * @see graphs.shortestpaths.IntEdgeBasedAStarSolver
+ */
+public class TurnRestrictions {
+    /**
+     * An empty table that allows every turn.
+     */
+    public static final TurnRestrictions NONE = new TurnRestrictions(new long[0]);
+    /**
+     * The sorted, distinct packed turns.
+     */
+    private final long[] forbidden;
+
+    /**
+     * Constructs a table forbidding the given packed turns, which may be in any order and contain duplicates.
+     *
+     * @param turns the forbidden turns packed by {@link #turn(int, int)}.
+     */
+    public TurnRestrictions(long[] turns) {
+        long[] sorted = Arrays.copyOf(turns, turns.length);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i += 1) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size] = sorted[i];
+                size += 1;
+            }
+        }
+        this.forbidden = Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Returns the turn from the incoming edge to the outgoing edge packed into a long.
+     *
+     * @param inEdge  the edge entering the vertex.
+     * @param outEdge the edge leaving the vertex.
+     * @return the packed turn.
+     */
+    public static long turn(int inEdge, int outEdge) {
+        return ((long) inEdge << 32) | (outEdge & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns true if the turn from the incoming edge to the outgoing edge is allowed.
+     *
+     * @param inEdge  the edge entering the vertex.
+     * @param outEdge the edge leaving the vertex.
+     * @return true if the turn is allowed.
+     */
+    public boolean isAllowed(int inEdge, int outEdge) {
+        return forbidden.length == 0 || Arrays.binarySearch(forbidden, turn(inEdge, outEdge)) < 0;
+    }
+
+    /**
+     * Returns the number of forbidden turns.
+     *
+     * @return the number of forbidden turns.
+     */
+    public int size() {
+        return forbidden.length;
+    }
+
+    /**
+     * Returns true if every turn is allowed.
+     *
+     * @return true if every turn is allowed.
+     */
+    public boolean isEmpty() {
+        return forbidden.length == 0;
+    }
+}
@@ -4,16 +4,26 @@ import graphs.Edge;
 import graphs.Graph;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
- * Bellman-Ford algorithm implementation of the {@link ShortestPathSolver} interface.
+ * Bellman-Ford algorithm implementation of the {@link ShortestPathSolver} interface. Each pass only relaxes the
+ * outgoing edges of vertices whose distance changed in the previous pass, so the algorithm stops as soon as a pass
+ * makes no changes. If a negative cycle is reachable from the start, the search stops once it finds one and reports it
+ * through {@link #negativeCycle()}.
  *
  * @param <V> the type of vertices.
  * @see ShortestPathSolver
  */
 public class BellmanFordSolver<V> implements ShortestPathSolver<V> {
+    /**
+     * Minimum number of vertices relaxed by a single fork-join task before it is split.
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
     private final Map<V, Edge<V>> edgeTo;
     private final Map<V, Double> distTo;
+    private final List<V> negativeCycle;
 
     /**
      * Constructs a new instance by executing Bellman-Ford algorithm on the graph from the start.
@@ -22,28 +32,162 @@ public class BellmanFordSolver<V> implements ShortestPathSolver<V> {
      * @param start the start vertex.
      */
     public BellmanFordSolver(Graph<V> graph, V start) {
+        this(graph, start, null);
+    }
+
+    /**
+     * Constructs a new instance by executing Bellman-Ford algorithm on the graph from the start, relaxing the vertices
+     * of each pass in parallel on the given pool. Parallel passes only read distances from the previous pass, so the
+     * graph must be safe to read from multiple threads.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @param pool  the {@link ForkJoinPool} for relaxing each pass, or null to relax sequentially.
+     */
+    public BellmanFordSolver(Graph<V> graph, V start, ForkJoinPool pool) {
         edgeTo = new HashMap<>();
         distTo = new HashMap<>();
         edgeTo.put(start, null);
         distTo.put(start, 0.0);
-        List<V> vertices = vertices(graph, start);
-        for (int i = 1; i < vertices.size(); i += 1) {
-            for (V from : vertices) {
-                for (Edge<V> e : graph.neighbors(from)) {
-                    V to = e.to;
-                    double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
-                    double newDist = distTo.get(from) + e.weight;
-                    if (newDist < oldDist) {
-                        edgeTo.put(to, e);
-                        distTo.put(to, newDist);
+        int numVertices = vertices(graph, start).size();
+        List<V> cycle = List.of();
+        Collection<V> changed = List.of(start);
+        // Without negative cycles, every shortest path has fewer than numVertices edges, so any pass from then on that
+        // still changes a distance indicates a negative cycle.
+        for (int i = 1; !changed.isEmpty(); i += 1) {
+            changed = pool == null ? relax(graph, changed) : relax(graph, new ArrayList<>(changed), pool);
+            if (i >= numVertices) {
+                cycle = findCycle(edgeTo, changed);
+                if (!cycle.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        negativeCycle = cycle;
+    }
+
+    /**
+     * Relaxes the outgoing edges of the given vertices, using updated distances as soon as they are known.
+     *
+     * @param graph  the input graph.
+     * @param active the vertices whose outgoing edges are relaxed.
+     * @return the vertices whose distances changed, in order.
+     */
+    private Collection<V> relax(Graph<V> graph, Collection<V> active) {
+        Set<V> changed = new LinkedHashSet<>();
+        for (V from : active) {
+            for (Edge<V> e : graph.neighbors(from)) {
+                V to = e.to;
+                double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
+                double newDist = distTo.get(from) + e.weight;
+                if (newDist < oldDist) {
+                    edgeTo.put(to, e);
+                    distTo.put(to, newDist);
+                    changed.add(to);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Relaxes the outgoing edges of the given vertices in parallel. Each task finds the best improving edge into each
+     * vertex using the distances from before this pass, and the results are then applied sequentially.
+     *
+     * @param graph  the input graph.
+     * @param active the vertices whose outgoing edges are relaxed.
+     * @param pool   the {@link ForkJoinPool} for relaxing the vertices.
+     * @return the vertices whose distances changed, in order.
+     */
+    private Collection<V> relax(Graph<V> graph, List<V> active, ForkJoinPool pool) {
+        Map<V, Edge<V>> improvements = pool.invoke(new RelaxTask(graph, active, 0, active.size()));
+        // Compute every new distance before applying any so that all of them use the previous pass's distances.
+        List<Double> newDists = new ArrayList<>(improvements.size());
+        for (Edge<V> e : improvements.values()) {
+            newDists.add(distTo.get(e.from) + e.weight);
+        }
+        Set<V> changed = new LinkedHashSet<>();
+        int i = 0;
+        for (Edge<V> e : improvements.values()) {
+            edgeTo.put(e.to, e);
+            distTo.put(e.to, newDists.get(i));
+            changed.add(e.to);
+            i += 1;
+        }
+        return changed;
+    }
+
+    /**
+     * Returns a cycle of parent edges reachable by walking up from the given vertices, or an empty list if there is
+     * none. Every cycle of parent edges has negative total weight.
+     *
+     * @param edgeTo   the edge to each vertex from its parent.
+     * @param vertices the vertices to walk up from.
+     * @param <V>      the type of vertices.
+     * @return the vertices of a negative cycle starting and ending at the same vertex, or an empty list.
+     */
+    static <V> List<V> findCycle(Map<V, Edge<V>> edgeTo, Collection<V> vertices) {
+        Set<V> explored = new HashSet<>();
+        for (V vertex : vertices) {
+            Set<V> walk = new HashSet<>();
+            V curr = vertex;
+            while (curr != null && !explored.contains(curr)) {
+                if (!walk.add(curr)) {
+                    // Revisited a vertex on this walk: curr is on a cycle.
+                    List<V> cycle = new ArrayList<>();
+                    cycle.add(curr);
+                    for (V v = edgeTo.get(curr).from; !v.equals(curr); v = edgeTo.get(v).from) {
+                        cycle.add(v);
                     }
+                    cycle.add(curr);
+                    Collections.reverse(cycle);
+                    return cycle;
                 }
+                Edge<V> e = edgeTo.get(curr);
+                curr = e == null ? null : e.from;
             }
+            explored.addAll(walk);
         }
+        return List.of();
     }
 
+    /**
+     * Returns true if a negative cycle is reachable from the start.
+     *
+     * @return true if a negative cycle is reachable from the start.
+     */
+    public boolean hasNegativeCycle() {
+        return !negativeCycle.isEmpty();
+    }
+
+    /**
+     * Returns a negative cycle reachable from the start as a list of vertices in edge order that starts and ends at
+     * the same vertex, or an empty list if there is none.
+     *
+     * @return a negative cycle reachable from the start, or an empty list.
+     */
+    public List<V> negativeCycle() {
+        return negativeCycle;
+    }
+
+    @Override
+    public ShortestPathTree<V> tree() {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + negativeCycle);
+        }
+        return ShortestPathTree.of(edgeTo, distTo);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if a negative cycle is reachable from the start.
+     */
     @Override
     public List<V> solution(V goal) {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + negativeCycle);
+        }
         List<V> path = new ArrayList<>();
         V curr = goal;
         path.add(curr);
@@ -74,4 +218,58 @@ public class BellmanFordSolver<V> implements ShortestPathSolver<V> {
         }
         return result;
     }
+
+    /**
+     * Fork-join task that finds the best improving edge into each vertex from a range of the active vertices without
+     * modifying any distances.
+     */
+    private class RelaxTask extends RecursiveTask<Map<V, Edge<V>>> {
+        private final Graph<V> graph;
+        private final List<V> active;
+        private final int lo;
+        private final int hi;
+
+        RelaxTask(Graph<V> graph, List<V> active, int lo, int hi) {
+            this.graph = graph;
+            this.active = active;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Map<V, Edge<V>> compute() {
+            if (hi - lo > PARALLEL_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                RelaxTask left = new RelaxTask(graph, active, lo, mid);
+                left.fork();
+                Map<V, Edge<V>> result = new RelaxTask(graph, active, mid, hi).compute();
+                for (Edge<V> e : left.join().values()) {
+                    offer(result, e);
+                }
+                return result;
+            }
+            Map<V, Edge<V>> result = new LinkedHashMap<>();
+            for (int i = lo; i < hi; i += 1) {
+                for (Edge<V> e : graph.neighbors(active.get(i))) {
+                    if (distTo.get(e.from) + e.weight < distTo.getOrDefault(e.to, Double.POSITIVE_INFINITY)) {
+                        offer(result, e);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Records the improving edge if it is better than the best edge recorded for the same destination.
+         *
+         * @param best the best improving edge recorded for each destination.
+         * @param e    an improving edge.
+         */
+        private void offer(Map<V, Edge<V>> best, Edge<V> e) {
+            Edge<V> other = best.get(e.to);
+            if (other == null || distTo.get(e.from) + e.weight < distTo.get(other.from) + other.weight) {
+                best.put(e.to, e);
+            }
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package graphs.shortestpaths;
+
+import graphs.Graph;
+import graphs.IndexedGraph;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel delta-stepping implementation of the {@link ShortestPathSolver} interface for graphs with <b>non-negative</b>
+ * edge weights. The vertices reachable from the start are mapped to integer ids once, and the search itself runs on the
+ * resulting {@link IndexedGraph}.
+ *
+ * @param <V> the type of vertices.
+ * @see ShortestPathSolver
+ * @see IntDeltaSteppingSolver
+ */
+public class DeltaSteppingSolver<V> implements ShortestPathSolver<V> {
+    private final IndexedGraph<V> graph;
+    private final IntDeltaSteppingSolver solver;
+
+    /**
+     * Constructs a new instance by executing delta-stepping on the graph from the start with the given number of
+     * threads. Creating a pool for every search is costly; reuse a pool with the other constructor when possible.
+     *
+     * @param graph   the input graph.
+     * @param start   the start vertex.
+     * @param delta   the bucket width, which must be positive.
+     * @param threads the number of threads for relaxing edges in parallel.
+     */
+    public DeltaSteppingSolver(Graph<V> graph, V start, double delta, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            this.graph = new IndexedGraph<>(graph, List.of(start));
+            this.solver = new IntDeltaSteppingSolver(this.graph, 0, delta, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Constructs a new instance by executing delta-stepping on the graph from the start using the given pool.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @param delta the bucket width, which must be positive.
+     * @param pool  the {@link ForkJoinPool} for relaxing edges in parallel.
+     */
+    public DeltaSteppingSolver(Graph<V> graph, V start, double delta, ForkJoinPool pool) {
+        this.graph = new IndexedGraph<>(graph, List.of(start));
+        this.solver = new IntDeltaSteppingSolver(this.graph, 0, delta, pool);
+    }
+
+    /**
+     * Returns the shortest-path distance from the start to the goal, or infinity if the goal was not reached.
+     *
+     * @param goal the goal vertex.
+     * @return the shortest-path distance from the start to the goal.
+     */
+    public double distTo(V goal) {
+        int id = graph.id(goal);
+        return id == -1 ? Double.POSITIVE_INFINITY : solver.distTo(id);
+    }
+
+    @Override
+    public ShortestPathTree<V> tree() {
+        return new ShortestPathTree<>(graph.vertices(), solver.parents(), solver.distances());
+    }
+
+    @Override
+    public List<V> solution(V goal) {
+        int id = graph.id(goal);
+        if (id == -1) {
+            return List.of(goal);
+        }
+        return graph.vertices(solver.solution(id));
+    }
+}
@@ -16,6 +16,7 @@ import java.util.*;
 public class DijkstraSolver<V> implements ShortestPathSolver<V> {
     private final Map<V, Edge<V>> edgeTo;
     private final Map<V, Double> distTo;
+    private final List<V> settled;
 
     /**
      * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start.
@@ -24,14 +25,54 @@ public class DijkstraSolver<V> implements ShortestPathSolver<V> {
      * @param start the start vertex.
      */
     public DijkstraSolver(Graph<V> graph, V start) {
+        this(graph, start, null, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start, stopping as soon as
+     * every one of the targets has been settled. Only paths to settled vertices are guaranteed to be shortest.
+     *
+     * @param graph   the input graph.
+     * @param start   the start vertex.
+     * @param targets the vertices whose shortest paths are needed, or null to settle every reachable vertex.
+     */
+    public DijkstraSolver(Graph<V> graph, V start, Collection<V> targets) {
+        this(graph, start, targets, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start, settling only the
+     * vertices whose shortest-path distance is at most the given budget.
+     *
+     * @param graph       the input graph.
+     * @param start       the start vertex.
+     * @param maxDistance the distance budget.
+     */
+    public DijkstraSolver(Graph<V> graph, V start, double maxDistance) {
+        this(graph, start, null, maxDistance);
+    }
+
+    private DijkstraSolver(Graph<V> graph, V start, Collection<V> targets, double maxDistance) {
         edgeTo = new HashMap<>();
         distTo = new HashMap<>();
+        settled = new ArrayList<>();
+        Set<V> remaining = targets == null ? null : new HashSet<>(targets);
         MinPQ<V> perimeter = new DoubleMapMinPQ<>();
         perimeter.add(start, 0.0);
         edgeTo.put(start, null);
         distTo.put(start, 0.0);
         while (!perimeter.isEmpty()) {
             V from = perimeter.removeMin();
+            if (distTo.get(from) > maxDistance) {
+                return;
+            }
+            settled.add(from);
+            if (remaining != null) {
+                remaining.remove(from);
+                if (remaining.isEmpty()) {
+                    return;
+                }
+            }
             for (Edge<V> e : graph.neighbors(from)) {
                 V to = e.to;
                 double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
@@ -45,6 +86,30 @@ public class DijkstraSolver<V> implements ShortestPathSolver<V> {
         }
     }
 
+    /**
+     * Returns the shortest-path distance from the start to the goal, or infinity if the goal was not reached.
+     *
+     * @param goal the goal vertex.
+     * @return the shortest-path distance from the start to the goal.
+     */
+    public double distTo(V goal) {
+        return distTo.getOrDefault(goal, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns the settled vertices in order of nondecreasing shortest-path distance from the start.
+     *
+     * @return an unmodifiable view of the settled vertices.
+     */
+    public List<V> settled() {
+        return Collections.unmodifiableList(settled);
+    }
+
+    @Override
+    public ShortestPathTree<V> tree() {
+        return ShortestPathTree.of(edgeTo, distTo);
+    }
+
     @Override
     public List<V> solution(V goal) {
         List<V> path = new ArrayList<>();
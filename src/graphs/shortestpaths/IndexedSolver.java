@@ -0,0 +1,68 @@
+package graphs.shortestpaths;
+
+import graphs.Graph;
+import graphs.IndexedGraph;
+
+import java.util.List;
+
+/**
+ * {@link ShortestPathSolver} adapter that maps the vertices reachable from the start to integer ids once and then runs
+ * an {@link IntShortestPathSolver} on the resulting {@link IndexedGraph}.
+ *
+ * @param <V> the type of vertices.
+ * @see IndexedGraph
+ * @see IntShortestPathSolver
+ */
+public class IndexedSolver<V> implements ShortestPathSolver<V> {
+    private final IndexedGraph<V> graph;
+    private final IntShortestPathSolver solver;
+
+    /**
+     * Constructs a new instance by indexing the graph from the start and executing the given solver on it.
+     *
+     * @param graph  the input graph.
+     * @param start  the start vertex.
+     * @param solver the constructor for the {@link IntShortestPathSolver} implementation.
+     */
+    public IndexedSolver(Graph<V> graph, V start, IntShortestPathSolver.Constructor solver) {
+        this.graph = new IndexedGraph<>(graph, List.of(start));
+        this.solver = solver.run(this.graph, 0);
+    }
+
+    /**
+     * Returns a {@link ShortestPathSolver.Constructor} that runs the given {@link IntShortestPathSolver} on an indexed
+     * copy of each input graph, such as {@code IndexedSolver.of(IntDijkstraSolver::new)}.
+     *
+     * @param solver the constructor for the {@link IntShortestPathSolver} implementation.
+     * @param <V>    the type of vertices.
+     * @return a constructor for {@link IndexedSolver} instances using the given implementation.
+     */
+    public static <V> ShortestPathSolver.Constructor<V> of(IntShortestPathSolver.Constructor solver) {
+        return (graph, start) -> new IndexedSolver<>(graph, start, solver);
+    }
+
+    /**
+     * Returns the shortest-path distance from the start to the goal, or infinity if the goal was not reached.
+     *
+     * @param goal the goal vertex.
+     * @return the shortest-path distance from the start to the goal.
+     */
+    public double distTo(V goal) {
+        int id = graph.id(goal);
+        return id == -1 ? Double.POSITIVE_INFINITY : solver.distTo(id);
+    }
+
+    @Override
+    public ShortestPathTree<V> tree() {
+        return new ShortestPathTree<>(graph.vertices(), solver.parents(), solver.distances());
+    }
+
+    @Override
+    public List<V> solution(V goal) {
+        int id = graph.id(goal);
+        if (id == -1) {
+            return List.of(goal);
+        }
+        return graph.vertices(solver.solution(id));
+    }
+}
@@ -0,0 +1,85 @@
+package graphs.shortestpaths;
+
+import graphs.IntAStarGraph;
+import minpq.IntHeapMinPQ;
+
+/**
+ * A* search implementation for single-pair shortest paths in an {@link IntAStarGraph}. The search stops as soon as the
+ * goal is settled, which finds a shortest path whenever the heuristic is consistent. Results are kept in a
+ * {@link SearchWorkspace}, which may be reused across searches so that a search only pays for the vertices it touches.
+ *
+ * @see IntAStarGraph
+ * @see AStarSolver
+ * @see SearchWorkspace
+ */
+public class IntAStarSolver {
+    private final SearchWorkspace workspace;
+    private final int goal;
+
+    /**
+     * Constructs a new instance by executing A* search on the graph from the start to the goal.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @param goal  the goal vertex.
+     */
+    public IntAStarSolver(IntAStarGraph graph, int start, int goal) {
+        this(graph, start, goal, new SearchWorkspace(graph.size()));
+    }
+
+    /**
+     * Constructs a new instance by executing A* search on the graph from the start to the goal in the given workspace.
+     * The results of this instance are only valid until the workspace is used for another search.
+     *
+     * @param graph     the input graph.
+     * @param start     the start vertex.
+     * @param goal      the goal vertex.
+     * @param workspace the workspace for the search, which is reset before use.
+     */
+    public IntAStarSolver(IntAStarGraph graph, int start, int goal, SearchWorkspace workspace) {
+        this.workspace = workspace;
+        this.goal = goal;
+        workspace.reset();
+        // Marked vertices are settled.
+        IntHeapMinPQ perimeter = workspace.perimeter();
+        perimeter.add(start, graph.estimatedDistance(start, goal));
+        workspace.set(start, 0.0, -1);
+        while (!perimeter.isEmpty()) {
+            int from = perimeter.removeMin();
+            if (workspace.isMarked(from)) {
+                continue; // Outdated copy of a vertex that was already settled
+            }
+            workspace.mark(from);
+            if (from == goal) {
+                return;
+            }
+            double fromDist = workspace.distTo(from);
+            for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                int to = graph.to(e);
+                double newDist = fromDist + graph.weight(e);
+                if (newDist < workspace.distTo(to)) {
+                    workspace.set(to, newDist, from);
+                    perimeter.add(to, newDist + graph.estimatedDistance(to, goal));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the single-pair shortest path from the stored start to the stored goal.
+     *
+     * @return an array of vertices representing the shortest path.
+     */
+    public int[] solution() {
+        return workspace.path(goal);
+    }
+
+    /**
+     * Returns the shortest-path distance from the stored start to the stored goal, or infinity if it is unreachable.
+     *
+     * @return the shortest-path distance from the stored start to the stored goal.
+     */
+    public double distance() {
+        return workspace.distTo(goal);
+    }
+}
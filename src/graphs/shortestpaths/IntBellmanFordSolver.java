@@ -0,0 +1,272 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bellman-Ford algorithm implementation of the {@link IntShortestPathSolver} interface. Each pass only relaxes the
+ * outgoing edges of vertices whose distance changed in the previous pass, so the algorithm stops as soon as a pass
+ * makes no changes. If a negative cycle is reachable from the start, the search stops once it finds one and reports it
+ * through {@link #negativeCycle()}.
+ *
+ * @see IntShortestPathSolver
+ * @see BellmanFordSolver
+ */
+public class IntBellmanFordSolver implements IntShortestPathSolver {
+    /**
+     * Minimum number of vertices relaxed by a single fork-join task before it is split.
+     */
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private final int[] edgeTo;
+    private final double[] distTo;
+    private final int[] negativeCycle;
+
+    /**
+     * Constructs a new instance by executing Bellman-Ford algorithm on the graph from the start.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     */
+    public IntBellmanFordSolver(IntGraph graph, int start) {
+        this(graph, start, null);
+    }
+
+    /**
+     * Constructs a new instance by executing Bellman-Ford algorithm on the graph from the start, relaxing the vertices
+     * of each pass in parallel on the given pool.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @param pool  the {@link ForkJoinPool} for relaxing each pass, or null to relax sequentially.
+     */
+    public IntBellmanFordSolver(IntGraph graph, int start, ForkJoinPool pool) {
+        edgeTo = IntShortestPathSolver.filled(graph.size(), -1);
+        distTo = IntShortestPathSolver.filled(graph.size(), Double.POSITIVE_INFINITY);
+        distTo[start] = 0.0;
+        // The vertices whose distances changed in the previous pass, without duplicates.
+        int[] active = new int[]{start};
+        int activeCount = 1;
+        int[] changed = new int[graph.size()];
+        boolean[] isChanged = new boolean[graph.size()];
+        int[] cycle = new int[0];
+        for (int i = 1; activeCount > 0; i += 1) {
+            int changedCount = 0;
+            if (pool == null) {
+                for (int a = 0; a < activeCount; a += 1) {
+                    int from = active[a];
+                    for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                        int to = graph.to(e);
+                        double newDist = distTo[from] + graph.weight(e);
+                        if (newDist < distTo[to]) {
+                            edgeTo[to] = from;
+                            distTo[to] = newDist;
+                            if (!isChanged[to]) {
+                                isChanged[to] = true;
+                                changed[changedCount] = to;
+                                changedCount += 1;
+                            }
+                        }
+                    }
+                }
+            } else {
+                RelaxTask task = new RelaxTask(graph, active, 0, activeCount);
+                pool.invoke(task);
+                changedCount = task.apply(changed, isChanged, 0);
+            }
+            for (int c = 0; c < changedCount; c += 1) {
+                isChanged[changed[c]] = false;
+            }
+            int[] temp = active.length == graph.size() ? active : new int[graph.size()];
+            active = changed;
+            activeCount = changedCount;
+            changed = temp;
+            // Without negative cycles, every shortest path has fewer than size() edges, so any pass from then on that
+            // still changes a distance indicates a negative cycle.
+            if (i >= graph.size() && activeCount > 0) {
+                cycle = findCycle(edgeTo, active, activeCount);
+                if (cycle.length > 0) {
+                    break;
+                }
+            }
+        }
+        negativeCycle = cycle;
+    }
+
+    /**
+     * Returns a cycle of parents reachable by walking up from the given vertices, or an empty array if there is none.
+     * Every cycle of parents has negative total weight.
+     *
+     * @param edgeTo   the parent of each vertex, or -1 if the vertex has no parent.
+     * @param vertices the vertices to walk up from.
+     * @param count    the number of vertices to walk up from.
+     * @return the vertices of a negative cycle starting and ending at the same vertex, or an empty array.
+     */
+    static int[] findCycle(int[] edgeTo, int[] vertices, int count) {
+        // The walk that last visited each vertex, or 0 if the vertex has not been visited.
+        int[] visitedBy = new int[edgeTo.length];
+        for (int i = 0; i < count; i += 1) {
+            int walk = i + 1;
+            int curr = vertices[i];
+            while (curr != -1 && visitedBy[curr] == 0) {
+                visitedBy[curr] = walk;
+                curr = edgeTo[curr];
+            }
+            if (curr != -1 && visitedBy[curr] == walk) {
+                // Revisited a vertex on this walk: curr is on a cycle.
+                int length = 1;
+                for (int v = edgeTo[curr]; v != curr; v = edgeTo[v]) {
+                    length += 1;
+                }
+                int[] cycle = new int[length + 1];
+                int v = curr;
+                for (int j = length; j >= 0; j -= 1) {
+                    cycle[j] = v;
+                    v = edgeTo[v];
+                }
+                return cycle;
+            }
+        }
+        return new int[0];
+    }
+
+    /**
+     * Returns true if a negative cycle is reachable from the start.
+     *
+     * @return true if a negative cycle is reachable from the start.
+     */
+    public boolean hasNegativeCycle() {
+        return negativeCycle.length > 0;
+    }
+
+    /**
+     * Returns a negative cycle reachable from the start as an array of vertices in edge order that starts and ends at
+     * the same vertex, or an empty array if there is none.
+     *
+     * @return a negative cycle reachable from the start, or an empty array.
+     */
+    public int[] negativeCycle() {
+        return Arrays.copyOf(negativeCycle, negativeCycle.length);
+    }
+
+    @Override
+    public int[] parents() {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + Arrays.toString(negativeCycle));
+        }
+        return Arrays.copyOf(edgeTo, edgeTo.length);
+    }
+
+    @Override
+    public double[] distances() {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + Arrays.toString(negativeCycle));
+        }
+        return Arrays.copyOf(distTo, distTo.length);
+    }
+
+    @Override
+    public double distTo(int goal) {
+        return distTo[goal];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if a negative cycle is reachable from the start.
+     */
+    @Override
+    public int[] solution(int goal) {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + Arrays.toString(negativeCycle));
+        }
+        return IntShortestPathSolver.path(edgeTo, goal);
+    }
+
+    /**
+     * Fork-join task that proposes improving edges from a range of the active vertices using the distances from before
+     * this pass. Each leaf task buffers its own proposals, so no locking is needed, and {@link #apply} then merges them
+     * sequentially.
+     */
+    private class RelaxTask extends RecursiveAction {
+        private final IntGraph graph;
+        private final int[] active;
+        private final int lo;
+        private final int hi;
+        private RelaxTask left;
+        private RelaxTask right;
+        private int[] froms;
+        private int[] tos;
+        private double[] dists;
+        private int count;
+
+        RelaxTask(IntGraph graph, int[] active, int lo, int hi) {
+            this.graph = graph;
+            this.active = active;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > PARALLEL_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                left = new RelaxTask(graph, active, lo, mid);
+                right = new RelaxTask(graph, active, mid, hi);
+                invokeAll(left, right);
+                return;
+            }
+            froms = new int[16];
+            tos = new int[16];
+            dists = new double[16];
+            for (int a = lo; a < hi; a += 1) {
+                int from = active[a];
+                for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                    int to = graph.to(e);
+                    double newDist = distTo[from] + graph.weight(e);
+                    if (newDist < distTo[to]) {
+                        if (count == tos.length) {
+                            froms = Arrays.copyOf(froms, 2 * count);
+                            tos = Arrays.copyOf(tos, 2 * count);
+                            dists = Arrays.copyOf(dists, 2 * count);
+                        }
+                        froms[count] = from;
+                        tos[count] = to;
+                        dists[count] = newDist;
+                        count += 1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Applies the proposals of this task and its subtasks that still improve a distance.
+         *
+         * @param changed      the destination for vertices whose distances changed.
+         * @param isChanged    whether each vertex is already in the changed array.
+         * @param changedCount the number of vertices already in the changed array.
+         * @return the number of vertices in the changed array after applying the proposals.
+         */
+        int apply(int[] changed, boolean[] isChanged, int changedCount) {
+            if (left != null) {
+                changedCount = left.apply(changed, isChanged, changedCount);
+                return right.apply(changed, isChanged, changedCount);
+            }
+            for (int i = 0; i < count; i += 1) {
+                int to = tos[i];
+                if (dists[i] < distTo[to]) {
+                    edgeTo[to] = froms[i];
+                    distTo[to] = dists[i];
+                    if (!isChanged[to]) {
+                        isChanged[to] = true;
+                        changed[changedCount] = to;
+                        changedCount += 1;
+                    }
+                }
+            }
+            return changedCount;
+        }
+    }
+}
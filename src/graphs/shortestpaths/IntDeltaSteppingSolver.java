@@ -0,0 +1,279 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Delta-stepping implementation of the {@link IntShortestPathSolver} interface for graphs with <b>non-negative</b>
+ * edge weights. Vertices are grouped into buckets of width delta by tentative distance. The smallest non-empty bucket
+ * is emptied by repeatedly relaxing the light edges (weight at most delta) of its vertices in parallel, and then the
+ * heavy edges of every vertex removed from the bucket are relaxed in parallel once. Small deltas approach Dijkstra's
+ * algorithm with little parallelism; large deltas approach Bellman-Ford with more redundant relaxations.
+ *
+ * @see IntShortestPathSolver
+ * @see DeltaSteppingSolver
+ */
+public class IntDeltaSteppingSolver implements IntShortestPathSolver {
+    /**
+     * Minimum number of vertices relaxed by a single fork-join task before it is split.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+    private final IntGraph graph;
+    private final double delta;
+    private final ForkJoinPool pool;
+    /**
+     * Tentative distances stored as {@link Double#doubleToRawLongBits(double)} so they can be lowered atomically.
+     */
+    private final AtomicLongArray distBits;
+    private final int[] edgeTo;
+    /**
+     * {@link TreeMap} of bucket index to the vertices inserted into the bucket, which may contain vertices that have
+     * since moved to a lower bucket.
+     */
+    private final TreeMap<Long, IntList> buckets;
+
+    /**
+     * Constructs a new instance by executing delta-stepping on the graph from the start.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @param delta the bucket width, which must be positive.
+     * @param pool  the {@link ForkJoinPool} for relaxing edges in parallel.
+     * @throws IllegalArgumentException if delta is not positive.
+     */
+    public IntDeltaSteppingSolver(IntGraph graph, int start, double delta, ForkJoinPool pool) {
+        if (!(delta > 0)) {
+            throw new IllegalArgumentException("Delta must be positive: " + delta);
+        }
+        this.graph = graph;
+        this.delta = delta;
+        this.pool = pool;
+        distBits = new AtomicLongArray(graph.size());
+        long infinity = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        for (int v = 0; v < graph.size(); v += 1) {
+            distBits.set(v, infinity);
+        }
+        buckets = new TreeMap<>();
+        distBits.set(start, Double.doubleToRawLongBits(0.0));
+        bucket(0).add(start);
+
+        // The round and phase in which each vertex was last relaxed, to skip duplicate entries.
+        int[] relaxedInRound = new int[graph.size()];
+        int[] removedInPhase = new int[graph.size()];
+        int round = 0;
+        int phase = 0;
+        while (!buckets.isEmpty()) {
+            Map.Entry<Long, IntList> first = buckets.pollFirstEntry();
+            long index = first.getKey();
+            phase += 1;
+            IntList removed = new IntList();
+            IntList frontier = first.getValue();
+            while (frontier != null) {
+                round += 1;
+                IntList current = new IntList();
+                for (int i = 0; i < frontier.size; i += 1) {
+                    int v = frontier.items[i];
+                    if (relaxedInRound[v] != round && bucketIndex(distTo(v)) == index) {
+                        relaxedInRound[v] = round;
+                        current.add(v);
+                        if (removedInPhase[v] != phase) {
+                            removedInPhase[v] = phase;
+                            removed.add(v);
+                        }
+                    }
+                }
+                relaxAll(current, true);
+                // Light edges can reinsert vertices into the current bucket, which then form the next frontier.
+                frontier = buckets.remove(index);
+            }
+            relaxAll(removed, false);
+        }
+        edgeTo = parents(start);
+    }
+
+    /**
+     * Relaxes the light or heavy edges of the given vertices in parallel and inserts every improved vertex into the
+     * bucket for its new distance.
+     *
+     * @param vertices the vertices whose edges are relaxed.
+     * @param light    true to relax edges with weight at most delta, false to relax the other edges.
+     */
+    private void relaxAll(IntList vertices, boolean light) {
+        if (vertices.size == 0) {
+            return;
+        }
+        RelaxTask task = new RelaxTask(vertices, 0, vertices.size, light);
+        pool.invoke(task);
+        task.insert();
+    }
+
+    /**
+     * Lowers the tentative distance of the vertex to the new distance if it is an improvement.
+     *
+     * @param vertex  the vertex to update.
+     * @param newDist the candidate distance.
+     * @return true if the tentative distance was lowered.
+     */
+    private boolean lower(int vertex, double newDist) {
+        long newBits = Double.doubleToRawLongBits(newDist);
+        while (true) {
+            long oldBits = distBits.get(vertex);
+            if (!(newDist < Double.longBitsToDouble(oldBits))) {
+                return false;
+            }
+            if (distBits.compareAndSet(vertex, oldBits, newBits)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the parent of each vertex in a shortest-path tree. Parents are not tracked during the parallel
+     * relaxations because concurrent updates could pair a distance with the wrong parent. Instead, a breadth-first
+     * search from the start follows only tight edges, those whose weight equals the difference in final distances,
+     * which contain a shortest-path tree.
+     *
+     * @param start the start vertex.
+     * @return the parent of each vertex, or -1 for the start and unreachable vertices.
+     */
+    private int[] parents(int start) {
+        int[] parent = IntShortestPathSolver.filled(graph.size(), -1);
+        boolean[] visited = new boolean[graph.size()];
+        int[] queue = new int[graph.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail] = start;
+        tail += 1;
+        visited[start] = true;
+        while (head < tail) {
+            int from = queue[head];
+            head += 1;
+            double fromDist = distTo(from);
+            for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                int to = graph.to(e);
+                if (!visited[to] && fromDist + graph.weight(e) == distTo(to)) {
+                    visited[to] = true;
+                    parent[to] = from;
+                    queue[tail] = to;
+                    tail += 1;
+                }
+            }
+        }
+        return parent;
+    }
+
+    private long bucketIndex(double dist) {
+        return (long) (dist / delta);
+    }
+
+    private IntList bucket(long index) {
+        return buckets.computeIfAbsent(index, (i) -> new IntList());
+    }
+
+    @Override
+    public int[] parents() {
+        return Arrays.copyOf(edgeTo, edgeTo.length);
+    }
+
+    @Override
+    public double[] distances() {
+        double[] result = new double[distBits.length()];
+        for (int v = 0; v < result.length; v += 1) {
+            result[v] = distTo(v);
+        }
+        return result;
+    }
+
+    @Override
+    public double distTo(int goal) {
+        return Double.longBitsToDouble(distBits.get(goal));
+    }
+
+    @Override
+    public int[] solution(int goal) {
+        return IntShortestPathSolver.path(edgeTo, goal);
+    }
+
+    /**
+     * Fork-join task that relaxes the light or heavy edges from a range of vertices. Each leaf task buffers the vertices
+     * it improved, and {@link #insert()} then adds them to their buckets sequentially.
+     */
+    private class RelaxTask extends RecursiveAction {
+        private final IntList vertices;
+        private final int lo;
+        private final int hi;
+        private final boolean light;
+        private RelaxTask left;
+        private RelaxTask right;
+        private IntList improved;
+
+        RelaxTask(IntList vertices, int lo, int hi, boolean light) {
+            this.vertices = vertices;
+            this.lo = lo;
+            this.hi = hi;
+            this.light = light;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > PARALLEL_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                left = new RelaxTask(vertices, lo, mid, light);
+                right = new RelaxTask(vertices, mid, hi, light);
+                invokeAll(left, right);
+                return;
+            }
+            improved = new IntList();
+            for (int i = lo; i < hi; i += 1) {
+                int from = vertices.items[i];
+                double fromDist = distTo(from);
+                for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                    double weight = graph.weight(e);
+                    if ((weight <= delta) == light) {
+                        int to = graph.to(e);
+                        if (lower(to, fromDist + weight)) {
+                            improved.add(to);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Inserts the vertices improved by this task and its subtasks into the buckets for their current distances.
+         */
+        void insert() {
+            if (left != null) {
+                left.insert();
+                right.insert();
+                return;
+            }
+            for (int i = 0; i < improved.size; i += 1) {
+                int v = improved.items[i];
+                bucket(bucketIndex(distTo(v))).add(v);
+            }
+        }
+    }
+
+    /**
+     * Growable list of {@code int} values.
+     */
+    private static class IntList {
+        private int[] items = new int[8];
+        private int size = 0;
+
+        void add(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size] = item;
+            size += 1;
+        }
+    }
+}
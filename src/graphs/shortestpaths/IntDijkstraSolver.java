@@ -0,0 +1,170 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+import minpq.IntHeapMinPQ;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm implementation of the {@link IntShortestPathSolver} interface. Results are kept in a
+ * {@link SearchWorkspace}, which may be reused across searches so that a search only pays for the vertices it touches.
+ *
+ * @see IntShortestPathSolver
+ * @see DijkstraSolver
+ * @see SearchWorkspace
+ */
+public class IntDijkstraSolver implements IntShortestPathSolver {
+    private final SearchWorkspace workspace;
+    private final int size;
+    private int[] settled;
+    private int settledCount;
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     */
+    public IntDijkstraSolver(IntGraph graph, int start) {
+        this(graph, start, null, Double.POSITIVE_INFINITY, new SearchWorkspace(graph.size()));
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start, stopping as soon as
+     * every one of the targets has been settled. Only paths to settled vertices are guaranteed to be shortest.
+     *
+     * @param graph   the input graph.
+     * @param start   the start vertex.
+     * @param targets the vertices whose shortest paths are needed, or null to settle every reachable vertex.
+     */
+    public IntDijkstraSolver(IntGraph graph, int start, int[] targets) {
+        this(graph, start, targets, Double.POSITIVE_INFINITY, new SearchWorkspace(graph.size()));
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start, settling only the
+     * vertices whose shortest-path distance is at most the given budget.
+     *
+     * @param graph       the input graph.
+     * @param start       the start vertex.
+     * @param maxDistance the distance budget.
+     */
+    public IntDijkstraSolver(IntGraph graph, int start, double maxDistance) {
+        this(graph, start, null, maxDistance, new SearchWorkspace(graph.size()));
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start in the given workspace,
+     * stopping once every target is settled or the next vertex is farther than the budget. The results of this
+     * instance are only valid until the workspace is used for another search.
+     *
+     * @param graph       the input graph.
+     * @param start       the start vertex.
+     * @param targets     the vertices whose shortest paths are needed, or null to settle every reachable vertex.
+     * @param maxDistance the distance budget, or infinity to settle every reachable vertex.
+     * @param workspace   the workspace for the search, which is reset before use.
+     */
+    public IntDijkstraSolver(IntGraph graph, int start, int[] targets, double maxDistance, SearchWorkspace workspace) {
+        this.workspace = workspace;
+        this.size = graph.size();
+        settled = new int[16];
+        settledCount = 0;
+        workspace.reset();
+        // Marked vertices are the targets that have not been settled yet.
+        int remaining = 0;
+        if (targets != null) {
+            for (int target : targets) {
+                if (!workspace.isMarked(target)) {
+                    workspace.mark(target);
+                    remaining += 1;
+                }
+            }
+        }
+        IntHeapMinPQ perimeter = workspace.perimeter();
+        perimeter.add(start, 0.0);
+        workspace.set(start, 0.0, -1);
+        while (!perimeter.isEmpty()) {
+            double priority = perimeter.peekMinPriority();
+            int from = perimeter.removeMin();
+            if (priority > workspace.distTo(from)) {
+                continue; // Outdated copy of a vertex that was already settled
+            }
+            if (priority > maxDistance) {
+                return;
+            }
+            if (settledCount == settled.length) {
+                settled = Arrays.copyOf(settled, 2 * settledCount);
+            }
+            settled[settledCount] = from;
+            settledCount += 1;
+            if (targets != null && workspace.isMarked(from)) {
+                remaining -= 1;
+                if (remaining == 0) {
+                    return;
+                }
+            }
+            for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                int to = graph.to(e);
+                double newDist = priority + graph.weight(e);
+                if (newDist < workspace.distTo(to)) {
+                    workspace.set(to, newDist, from);
+                    perimeter.add(to, newDist);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the settled vertices in order of nondecreasing shortest-path distance from the start.
+     *
+     * @return a new array of the settled vertices.
+     */
+    public int[] settled() {
+        return Arrays.copyOf(settled, settledCount);
+    }
+
+    @Override
+    public int[] parents() {
+        int[] result = new int[size];
+        for (int v = 0; v < size; v += 1) {
+            result[v] = workspace.edgeTo(v);
+        }
+        return result;
+    }
+
+    @Override
+    public double[] distances() {
+        double[] result = new double[size];
+        for (int v = 0; v < size; v += 1) {
+            result[v] = workspace.distTo(v);
+        }
+        return result;
+    }
+
+    @Override
+    public double distTo(int goal) {
+        return workspace.distTo(goal);
+    }
+
+    @Override
+    public int[] solution(int goal) {
+        return workspace.path(goal);
+    }
+
+    /**
+     * Returns the shortest paths from the start vertex to each of the goals. Each path is read from the workspace in
+     * time proportional to its length, so a search that settled only a small region never pays for the size of the
+     * graph.
+     *
+     * @param goals the goal vertices.
+     * @return an array of the shortest path to each goal, in the same order as the goals.
+     */
+    @Override
+    public int[][] solutions(int[] goals) {
+        int[][] result = new int[goals.length][];
+        for (int i = 0; i < goals.length; i += 1) {
+            result[i] = workspace.path(goals[i]);
+        }
+        return result;
+    }
+}
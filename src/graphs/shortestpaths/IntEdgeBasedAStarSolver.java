@@ -0,0 +1,134 @@
+package graphs.shortestpaths;
+
+import graphs.IntAStarGraph;
+import graphs.TurnRestrictions;
+import minpq.IntHeapMinPQ;
+
+/**
+ * A* search over the edges of an {@link IntAStarGraph} for single-pair shortest paths that obey
+ * {@link TurnRestrictions}. Each search state is the edge used to arrive at a vertex, so whether a turn is allowed only
+ * depends on the current state. The search settles edges rather than vertices and stops once an edge entering the goal
+ * is settled. Results are kept in a {@link SearchWorkspace} sized for the number of edges.
+ *
+ * @see IntAStarSolver
+ * @see TurnRestrictions
+ * @see SearchWorkspace
+ */
+public class IntEdgeBasedAStarSolver {
+    private final IntAStarGraph graph;
+    private final SearchWorkspace workspace;
+    private final int start;
+    private final int goal;
+    /**
+     * The settled edge entering the goal, or -1 if the goal is the start or unreachable.
+     */
+    private int last;
+    private int settledCount;
+
+    /**
+     * Constructs a new instance by executing edge-based A* search on the graph from the start to the goal.
+     *
+     * @param graph        the input graph.
+     * @param restrictions the forbidden turns.
+     * @param start        the start vertex.
+     * @param goal         the goal vertex.
+     */
+    public IntEdgeBasedAStarSolver(IntAStarGraph graph, TurnRestrictions restrictions, int start, int goal) {
+        this(graph, restrictions, start, goal, new SearchWorkspace(graph.edgeCount()));
+    }
+
+    /**
+     * Constructs a new instance by executing edge-based A* search on the graph from the start to the goal in the given
+     * workspace. The results of this instance are only valid until the workspace is used for another search.
+     *
+     * @param graph        the input graph.
+     * @param restrictions the forbidden turns.
+     * @param start        the start vertex.
+     * @param goal         the goal vertex.
+     * @param workspace    the workspace for the search with room for every edge, which is reset before use.
+     */
+    public IntEdgeBasedAStarSolver(IntAStarGraph graph, TurnRestrictions restrictions, int start, int goal,
+                                   SearchWorkspace workspace) {
+        this.graph = graph;
+        this.workspace = workspace;
+        this.start = start;
+        this.goal = goal;
+        this.last = -1;
+        workspace.reset();
+        if (start == goal) {
+            return;
+        }
+        // Workspace entries are indexed by edge, and marked edges are settled.
+        IntHeapMinPQ perimeter = workspace.perimeter();
+        for (int e = graph.edgeStart(start); e < graph.edgeEnd(start); e += 1) {
+            if (graph.weight(e) < workspace.distTo(e)) {
+                workspace.set(e, graph.weight(e), -1);
+                perimeter.add(e, graph.weight(e) + graph.estimatedDistance(graph.to(e), goal));
+            }
+        }
+        while (!perimeter.isEmpty()) {
+            int in = perimeter.removeMin();
+            if (workspace.isMarked(in)) {
+                continue; // Outdated copy of an edge that was already settled
+            }
+            workspace.mark(in);
+            settledCount += 1;
+            int via = graph.to(in);
+            if (via == goal) {
+                last = in;
+                return;
+            }
+            double inDist = workspace.distTo(in);
+            for (int out = graph.edgeStart(via); out < graph.edgeEnd(via); out += 1) {
+                if (!restrictions.isAllowed(in, out)) {
+                    continue;
+                }
+                double newDist = inDist + graph.weight(out);
+                if (newDist < workspace.distTo(out)) {
+                    workspace.set(out, newDist, in);
+                    perimeter.add(out, newDist + graph.estimatedDistance(graph.to(out), goal));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the single-pair shortest path from the stored start to the stored goal, or just the goal if it is
+     * unreachable.
+     *
+     * @return an array of vertices representing the shortest path.
+     */
+    public int[] solution() {
+        if (last == -1) {
+            return new int[]{goal};
+        }
+        int[] edges = workspace.path(last);
+        int[] path = new int[edges.length + 1];
+        path[0] = start;
+        for (int i = 0; i < edges.length; i += 1) {
+            path[i + 1] = graph.to(edges[i]);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the shortest-path distance from the stored start to the stored goal, or infinity if it is unreachable.
+     *
+     * @return the shortest-path distance from the stored start to the stored goal.
+     */
+    public double distance() {
+        if (last == -1) {
+            return start == goal ? 0.0 : Double.POSITIVE_INFINITY;
+        }
+        return workspace.distTo(last);
+    }
+
+    /**
+     * Returns the number of edges settled by the search, a measure of the work it did.
+     *
+     * @return the number of settled edges.
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+}
@@ -0,0 +1,133 @@
+package graphs.shortestpaths;
+
+import graphs.Partition;
+import minpq.IntHeapMinPQ;
+
+import java.util.Arrays;
+
+/**
+ * Single-pair shortest paths on a {@link MultiLevelOverlay}. The search only visits the graph inside the finest cells
+ * of the start and goal; every other vertex is expanded at the coarsest level whose cell contains neither the start
+ * nor the goal, by jumping across the clique of its cell and following the edges that leave it. The clique edges on
+ * the resulting path are unpacked into vertices of the graph on demand.
+ *
+ * @see MultiLevelOverlay
+ * @see IntDijkstraSolver
+ */
+public class IntOverlaySolver {
+    private final MultiLevelOverlay overlay;
+    private final int start;
+    private final int goal;
+    /**
+     * The path through the overlay, where consecutive vertices in the same cell at their search level are joined by a
+     * clique edge rather than an edge of the graph.
+     */
+    private final int[] overlayPath;
+    private final double distance;
+    private int settledCount;
+
+    /**
+     * Constructs a new instance by searching the overlay from the start to the goal.
+     *
+     * @param overlay the customized overlay.
+     * @param start   the start vertex.
+     * @param goal    the goal vertex.
+     */
+    public IntOverlaySolver(MultiLevelOverlay overlay, int start, int goal) {
+        this(overlay, start, goal, new SearchWorkspace(overlay.graph().size()));
+    }
+
+    /**
+     * Constructs a new instance by searching the overlay from the start to the goal in the given workspace.
+     *
+     * @param overlay   the customized overlay.
+     * @param start     the start vertex.
+     * @param goal      the goal vertex.
+     * @param workspace the workspace for the search, which is reset before use.
+     */
+    public IntOverlaySolver(MultiLevelOverlay overlay, int start, int goal, SearchWorkspace workspace) {
+        this.overlay = overlay;
+        this.start = start;
+        this.goal = goal;
+        workspace.reset();
+        IntHeapMinPQ perimeter = workspace.perimeter();
+        workspace.set(start, 0.0, -1);
+        perimeter.add(start, 0.0);
+        while (!perimeter.isEmpty()) {
+            int from = perimeter.removeMin();
+            if (workspace.isMarked(from)) {
+                continue; // Outdated copy of a vertex that was already settled
+            }
+            workspace.mark(from);
+            settledCount += 1;
+            if (from == goal) {
+                break;
+            }
+            overlay.relax(from, level(from), -1, -1, workspace);
+        }
+        this.distance = workspace.distTo(goal);
+        this.overlayPath = workspace.path(goal);
+    }
+
+    /**
+     * Returns the level at which the vertex is expanded: the coarsest level whose cell containing the vertex contains
+     * neither the start nor the goal, or -1 if the vertex shares its finest cell with the start or the goal.
+     *
+     * @param vertex the vertex of interest.
+     * @return the search level of the vertex.
+     */
+    private int level(int vertex) {
+        Partition partition = overlay.partition();
+        for (int level = partition.levels() - 1; level >= 0; level -= 1) {
+            int cell = partition.cell(level, vertex);
+            if (cell != partition.cell(level, start) && cell != partition.cell(level, goal)) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the single-pair shortest path from the stored start to the stored goal with every clique edge unpacked
+     * into vertices of the graph. If the goal is unreachable, the path only contains the goal.
+     *
+     * @return an array of vertices representing the shortest path.
+     */
+    public int[] solution() {
+        Partition partition = overlay.partition();
+        int[] path = new int[]{overlayPath[0]};
+        int size = 1;
+        for (int i = 1; i < overlayPath.length; i += 1) {
+            int from = overlayPath[i - 1];
+            int to = overlayPath[i];
+            int level = level(from);
+            int[] segment = level >= 0 && partition.cell(level, from) == partition.cell(level, to)
+                    ? overlay.unpack(from, to, level)
+                    : new int[]{from, to};
+            if (size + segment.length - 1 > path.length) {
+                path = Arrays.copyOf(path, Math.max(2 * path.length, size + segment.length - 1));
+            }
+            System.arraycopy(segment, 1, path, size, segment.length - 1);
+            size += segment.length - 1;
+        }
+        return Arrays.copyOf(path, size);
+    }
+
+    /**
+     * Returns the shortest-path distance from the stored start to the stored goal, or infinity if it is unreachable.
+     *
+     * @return the shortest-path distance from the stored start to the stored goal.
+     */
+    public double distance() {
+        return distance;
+    }
+
+    /**
+     * Returns the number of vertices settled by the search, a measure of the work it did.
+     *
+     * @return the number of settled vertices.
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+}
@@ -0,0 +1,161 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ * Shortest Path Faster Algorithm implementation of the {@link IntShortestPathSolver} interface. The order in which
+ * queued vertices are processed is determined by a {@link QueueDiscipline}, and queue membership is tracked in a
+ * bitset. If a negative cycle is reachable from the start, the search stops once it finds one and reports it through
+ * {@link #negativeCycle()}.
+ *
+ * @see IntShortestPathSolver
+ * @see SPFASolver
+ * @see QueueDiscipline
+ */
+public class IntSPFASolver implements IntShortestPathSolver {
+    private final int[] edgeTo;
+    private final double[] distTo;
+    private final int[] negativeCycle;
+
+    /**
+     * Constructs a new instance by executing SPFA with the {@link QueueDiscipline#SLF} discipline on the graph from
+     * the start.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     */
+    public IntSPFASolver(IntGraph graph, int start) {
+        this(graph, start, QueueDiscipline.SLF);
+    }
+
+    /**
+     * Constructs a new instance by executing SPFA with the given queue discipline on the graph from the start.
+     *
+     * @param graph      the input graph.
+     * @param start      the start vertex.
+     * @param discipline the {@link QueueDiscipline} for ordering the queue.
+     */
+    public IntSPFASolver(IntGraph graph, int start, QueueDiscipline discipline) {
+        edgeTo = IntShortestPathSolver.filled(graph.size(), -1);
+        distTo = IntShortestPathSolver.filled(graph.size(), Double.POSITIVE_INFINITY);
+        // The number of edges on the path that produced each vertex's current distance. A path with at least as many
+        // edges as there are reached vertices repeats a vertex, and such a repeat can only lower a distance by going
+        // around a negative cycle.
+        int[] edgeCount = new int[graph.size()];
+        int reached = 1;
+        // Each vertex is in the queue at most once, so a circular buffer of one slot per vertex never overflows.
+        int[] queue = new int[graph.size()];
+        long[] inQueue = new long[(graph.size() + 63) / 64];
+        double sum = 0.0;
+        int head = 0;
+        int size = 1;
+        queue[0] = start;
+        inQueue[start >>> 6] |= 1L << start;
+        distTo[start] = 0.0;
+        int[] cycle = new int[0];
+        while (size > 0 && cycle.length == 0) {
+            if (discipline.largeLabelLast) {
+                double average = sum / size;
+                for (int i = 1; i < size && distTo[queue[head]] > average; i += 1) {
+                    queue[(head + size) % queue.length] = queue[head];
+                    head = (head + 1) % queue.length;
+                }
+            }
+            int from = queue[head];
+            head = (head + 1) % queue.length;
+            size -= 1;
+            inQueue[from >>> 6] &= ~(1L << from);
+            sum = size == 0 ? 0.0 : sum - distTo[from];
+            for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                int to = graph.to(e);
+                double oldDist = distTo[to];
+                double newDist = distTo[from] + graph.weight(e);
+                if (newDist < oldDist) {
+                    if (oldDist == Double.POSITIVE_INFINITY) {
+                        reached += 1;
+                    }
+                    edgeTo[to] = from;
+                    distTo[to] = newDist;
+                    edgeCount[to] = edgeCount[from] + 1;
+                    if ((inQueue[to >>> 6] & (1L << to)) != 0) {
+                        sum -= oldDist - newDist;
+                    } else {
+                        inQueue[to >>> 6] |= 1L << to;
+                        sum += newDist;
+                        if (discipline.smallLabelFirst && size > 0 && newDist < distTo[queue[head]]) {
+                            head = (head + queue.length - 1) % queue.length;
+                            queue[head] = to;
+                        } else {
+                            queue[(head + size) % queue.length] = to;
+                        }
+                        size += 1;
+                    }
+                    if (edgeCount[to] >= reached) {
+                        // The cycle is usually already in the parents. If not, edge counts keep growing around it, so
+                        // a later relaxation checks again, and relaxations that stay short pay nothing.
+                        cycle = IntBellmanFordSolver.findCycle(edgeTo, new int[]{to}, 1);
+                        if (cycle.length > 0) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        negativeCycle = cycle;
+    }
+
+    /**
+     * Returns true if a negative cycle is reachable from the start.
+     *
+     * @return true if a negative cycle is reachable from the start.
+     */
+    public boolean hasNegativeCycle() {
+        return negativeCycle.length > 0;
+    }
+
+    /**
+     * Returns a negative cycle reachable from the start as an array of vertices in edge order that starts and ends at
+     * the same vertex, or an empty array if there is none.
+     *
+     * @return a negative cycle reachable from the start, or an empty array.
+     */
+    public int[] negativeCycle() {
+        return Arrays.copyOf(negativeCycle, negativeCycle.length);
+    }
+
+    @Override
+    public int[] parents() {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + Arrays.toString(negativeCycle));
+        }
+        return Arrays.copyOf(edgeTo, edgeTo.length);
+    }
+
+    @Override
+    public double[] distances() {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + Arrays.toString(negativeCycle));
+        }
+        return Arrays.copyOf(distTo, distTo.length);
+    }
+
+    @Override
+    public double distTo(int goal) {
+        return distTo[goal];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if a negative cycle is reachable from the start.
+     */
+    @Override
+    public int[] solution(int goal) {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + Arrays.toString(negativeCycle));
+        }
+        return IntShortestPathSolver.path(edgeTo, goal);
+    }
+}
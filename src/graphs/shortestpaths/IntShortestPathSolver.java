@@ -0,0 +1,178 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ * Single-source shortest paths from a start vertex to all reachable vertices in an {@link IntGraph}. Implementations
+ * keep their results in primitive arrays indexed by vertex rather than in maps.
+ *
+ * @see Constructor
+ * @see IntGraph
+ * @see ShortestPathSolver
+ */
+public interface IntShortestPathSolver {
+    /**
+     * Returns the single-pair shortest path from a start vertex to the goal.
+     *
+     * @param goal the goal vertex.
+     * @return an array of vertices representing the shortest path.
+     */
+    int[] solution(int goal);
+
+    /**
+     * Returns the shortest-path distance from the start vertex to the goal, or infinity if the goal was not reached.
+     *
+     * @param goal the goal vertex.
+     * @return the shortest-path distance from the start vertex to the goal.
+     */
+    double distTo(int goal);
+
+    /**
+     * Returns the parent of every vertex in the shortest-path tree, which together with {@link #distances()} exports
+     * the whole tree as compact arrays.
+     *
+     * @return a new array of the parent of each vertex, or -1 for the start and unreached vertices.
+     */
+    int[] parents();
+
+    /**
+     * Returns the shortest-path distance to every vertex.
+     *
+     * @return a new array of the distance to each vertex, or infinity for unreached vertices.
+     */
+    double[] distances();
+
+    /**
+     * Returns the shortest paths from the start vertex to each of the goals in one pass. Paths that share a prefix
+     * only walk the tree for their distinct suffixes.
+     *
+     * @param goals the goal vertices.
+     * @return an array of the shortest path to each goal, in the same order as the goals.
+     */
+    default int[][] solutions(int[] goals) {
+        return paths(parents(), goals);
+    }
+
+    /**
+     * Returns the path ending at the goal by following the parent of each vertex back to a vertex without a parent.
+     *
+     * @param parent the parent of each vertex on its shortest path, or -1 if the vertex has no parent.
+     * @param goal   the goal vertex.
+     * @return an array of vertices representing the path.
+     */
+    static int[] path(int[] parent, int goal) {
+        int length = 1;
+        for (int curr = goal; parent[curr] != -1; curr = parent[curr]) {
+            length += 1;
+        }
+        int[] path = new int[length];
+        int curr = goal;
+        for (int i = length - 1; i >= 0; i -= 1) {
+            path[i] = curr;
+            curr = parent[curr];
+        }
+        return path;
+    }
+
+    /**
+     * Returns the paths ending at each of the goals by following parents back to vertices without a parent. Goals are
+     * processed deepest first, and each walk stops at the first vertex on an already-built path, copying that path's
+     * prefix instead of walking it again.
+     *
+     * @param parent the parent of each vertex on its shortest path, or -1 if the vertex has no parent.
+     * @param goals  the goal vertices.
+     * @return an array of the path to each goal, in the same order as the goals.
+     */
+    static int[][] paths(int[] parent, int[] goals) {
+        // depth[v] is the number of edges from the root to v, or -1 if not yet computed.
+        int[] depth = filled(parent.length, -1);
+        int[] stack = new int[16];
+        for (int goal : goals) {
+            int top = 0;
+            int curr = goal;
+            while (curr != -1 && depth[curr] == -1) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * top);
+                }
+                stack[top] = curr;
+                top += 1;
+                curr = parent[curr];
+            }
+            int d = curr == -1 ? -1 : depth[curr];
+            while (top > 0) {
+                top -= 1;
+                d += 1;
+                depth[stack[top]] = d;
+            }
+        }
+        Integer[] order = new Integer[goals.length];
+        for (int i = 0; i < goals.length; i += 1) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(depth[goals[b]], depth[goals[a]]));
+        // builtIn[v] is the index of a built path containing v, or -1 if no built path contains v.
+        int[] builtIn = filled(parent.length, -1);
+        int[][] result = new int[goals.length][];
+        for (int i : order) {
+            int goal = goals[i];
+            int[] path = new int[depth[goal] + 1];
+            int curr = goal;
+            while (curr != -1 && builtIn[curr] == -1) {
+                path[depth[curr]] = curr;
+                builtIn[curr] = i;
+                curr = parent[curr];
+            }
+            if (curr != -1) {
+                System.arraycopy(result[builtIn[curr]], 0, path, 0, depth[curr] + 1);
+            }
+            result[i] = path;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new array of the given length filled with the given value.
+     *
+     * @param length the length of the array.
+     * @param value  the value of every element.
+     * @return a new array of the given length filled with the given value.
+     */
+    static double[] filled(int length, double value) {
+        double[] result = new double[length];
+        Arrays.fill(result, value);
+        return result;
+    }
+
+    /**
+     * Returns a new array of the given length filled with the given value.
+     *
+     * @param length the length of the array.
+     * @param value  the value of every element.
+     * @return a new array of the given length filled with the given value.
+     */
+    static int[] filled(int length, int value) {
+        int[] result = new int[length];
+        Arrays.fill(result, value);
+        return result;
+    }
+
+    /**
+     * Constructor for {@link IntShortestPathSolver}.
+     *
+     * @see IntShortestPathSolver
+     */
+    @FunctionalInterface
+    interface Constructor {
+        /**
+         * Functional interface for running the constructor. Given an implementation of {@link IntShortestPathSolver},
+         * refer to its constructor as (for example) {@code IntDijkstraSolver::new}.
+         *
+         * @param graph the input graph.
+         * @param start the start vertex.
+         * @return an instance of {@link IntShortestPathSolver}.
+         */
+        IntShortestPathSolver run(IntGraph graph, int start);
+    }
+}
@@ -0,0 +1,100 @@
+package graphs.shortestpaths;
+
+import graphs.IntTimeDependentGraph;
+import minpq.IntHeapMinPQ;
+
+/**
+ * Time-dependent A* search for the earliest arrival from a start vertex at a given departure time to a goal in an
+ * {@link IntTimeDependentGraph}. Vertices are settled in order of arrival time plus the travel-time lower bound, and
+ * each edge is entered at the arrival time of its source. Because edge arrival times are FIFO, waiting never helps and
+ * this finds the earliest arrival just like A* finds shortest paths. Results are kept in a {@link SearchWorkspace}.
+ *
+ * @see IntTimeDependentGraph
+ * @see IntAStarSolver
+ * @see SearchWorkspace
+ */
+public class IntTimeDependentSolver {
+    private final SearchWorkspace workspace;
+    private final int goal;
+    private final double departure;
+
+    /**
+     * Constructs a new instance by searching the graph from the start at the departure time to the goal.
+     *
+     * @param graph     the input graph.
+     * @param start     the start vertex.
+     * @param goal      the goal vertex.
+     * @param departure the departure time in seconds since midnight.
+     */
+    public IntTimeDependentSolver(IntTimeDependentGraph graph, int start, int goal, double departure) {
+        this(graph, start, goal, departure, new SearchWorkspace(graph.size()));
+    }
+
+    /**
+     * Constructs a new instance by searching the graph from the start at the departure time to the goal in the given
+     * workspace. The results of this instance are only valid until the workspace is used for another search.
+     *
+     * @param graph     the input graph.
+     * @param start     the start vertex.
+     * @param goal      the goal vertex.
+     * @param departure the departure time in seconds since midnight.
+     * @param workspace the workspace for the search, which is reset before use.
+     */
+    public IntTimeDependentSolver(IntTimeDependentGraph graph, int start, int goal, double departure,
+                                  SearchWorkspace workspace) {
+        this.workspace = workspace;
+        this.goal = goal;
+        this.departure = departure;
+        workspace.reset();
+        // Workspace distances are arrival times, and marked vertices are settled.
+        IntHeapMinPQ perimeter = workspace.perimeter();
+        perimeter.add(start, departure + graph.estimatedTravelTime(start, goal));
+        workspace.set(start, departure, -1);
+        while (!perimeter.isEmpty()) {
+            int from = perimeter.removeMin();
+            if (workspace.isMarked(from)) {
+                continue; // Outdated copy of a vertex that was already settled
+            }
+            workspace.mark(from);
+            if (from == goal) {
+                return;
+            }
+            double fromTime = workspace.distTo(from);
+            for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                int to = graph.to(e);
+                double newTime = graph.arrivalTime(e, fromTime);
+                if (newTime < workspace.distTo(to)) {
+                    workspace.set(to, newTime, from);
+                    perimeter.add(to, newTime + graph.estimatedTravelTime(to, goal));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the earliest-arrival path from the stored start to the stored goal.
+     *
+     * @return an array of vertices representing the earliest-arrival path.
+     */
+    public int[] solution() {
+        return workspace.path(goal);
+    }
+
+    /**
+     * Returns the earliest arrival time at the stored goal, or infinity if it is unreachable.
+     *
+     * @return the earliest arrival time at the stored goal in seconds.
+     */
+    public double arrivalTime() {
+        return workspace.distTo(goal);
+    }
+
+    /**
+     * Returns the travel time from the stored start to the stored goal, or infinity if it is unreachable.
+     *
+     * @return the travel time in seconds.
+     */
+    public double travelTime() {
+        return workspace.distTo(goal) - departure;
+    }
+}
@@ -0,0 +1,118 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ * Topological sorting implementation of the {@link IntShortestPathSolver} interface for <b>directed acyclic
+ * graphs</b>. Vertices are relaxed in topological order as Kahn's algorithm produces it, so the order is never
+ * materialized and neither step recurses. Besides the results, the search needs one {@code int} of in-degree and one
+ * queue slot per vertex.
+ *
+ * @see IntShortestPathSolver
+ * @see ToposortDAGSolver
+ */
+public class IntToposortDAGSolver implements IntShortestPathSolver {
+    private final int[] edgeTo;
+    private final double[] distTo;
+
+    /**
+     * Constructs a new instance by executing the toposort-DAG-shortest-paths algorithm on the graph from the start.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @throws IllegalArgumentException if a cycle is reachable from the start.
+     */
+    public IntToposortDAGSolver(IntGraph graph, int start) {
+        edgeTo = IntShortestPathSolver.filled(graph.size(), -1);
+        distTo = IntShortestPathSolver.filled(graph.size(), Double.POSITIVE_INFINITY);
+        int[] queue = new int[graph.size()];
+        int[] inDegree = inDegrees(graph, start, queue);
+        if (inDegree[start] != 0) {
+            throw new IllegalArgumentException("Graph has a cycle through " + start);
+        }
+        // Each vertex enters the queue exactly once, when its last incoming edge has been relaxed.
+        int head = 0;
+        int tail = 0;
+        queue[tail] = start;
+        tail += 1;
+        distTo[start] = 0.0;
+        while (head < tail) {
+            int from = queue[head];
+            head += 1;
+            double fromDist = distTo[from];
+            for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                int to = graph.to(e);
+                double newDist = fromDist + graph.weight(e);
+                if (newDist < distTo[to]) {
+                    edgeTo[to] = from;
+                    distTo[to] = newDist;
+                }
+                inDegree[to] -= 1;
+                if (inDegree[to] == 0) {
+                    queue[tail] = to;
+                    tail += 1;
+                }
+            }
+        }
+        for (int v = 0; v < graph.size(); v += 1) {
+            if (inDegree[v] > 0) {
+                throw new IllegalArgumentException("Graph has a cycle reachable from " + start);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of incoming edges from vertices reachable from the start for every vertex, using an iterative
+     * breadth-first search.
+     *
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @param queue scratch space with one slot per vertex.
+     * @return the number of incoming edges from reachable vertices for every vertex.
+     */
+    private static int[] inDegrees(IntGraph graph, int start, int[] queue) {
+        int[] result = new int[graph.size()];
+        long[] visited = new long[(graph.size() + 63) / 64];
+        int head = 0;
+        int tail = 0;
+        queue[tail] = start;
+        tail += 1;
+        visited[start >>> 6] |= 1L << start;
+        while (head < tail) {
+            int from = queue[head];
+            head += 1;
+            for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+                int to = graph.to(e);
+                result[to] += 1;
+                if ((visited[to >>> 6] & (1L << to)) == 0) {
+                    visited[to >>> 6] |= 1L << to;
+                    queue[tail] = to;
+                    tail += 1;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] parents() {
+        return Arrays.copyOf(edgeTo, edgeTo.length);
+    }
+
+    @Override
+    public double[] distances() {
+        return Arrays.copyOf(distTo, distTo.length);
+    }
+
+    @Override
+    public double distTo(int goal) {
+        return distTo[goal];
+    }
+
+    @Override
+    public int[] solution(int goal) {
+        return IntShortestPathSolver.path(edgeTo, goal);
+    }
+}
@@ -0,0 +1,334 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+import graphs.Partition;
+import minpq.IntHeapMinPQ;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Multi-level overlay of an {@link IntGraph} over a nested {@link Partition}, as in customizable route planning. A
+ * vertex is a boundary vertex of its cell at a level if one of its edges crosses into another cell at that level. Each
+ * cell stores a clique of shortest-path distances between its boundary vertices through the inside of the cell, so a
+ * search can jump across a cell without visiting its interior. Cliques at level 0 are computed on the graph, and
+ * cliques at higher levels are computed on the overlay of the level below, so customizing a cell only touches the
+ * boundary vertices of its subcells.
+ * <p>
+ * The partition and boundaries depend only on the shape of the graph, while the cliques depend on its weights.
+ * {@link #customize(IntGraph, int[])} returns a new overlay for new weights that recomputes only the cells containing
+ * changed edges and shares everything else with this overlay, which is unchanged.
+ * <p>
+ * Cliques only hold distances between vertices, so an overlay of a road graph cannot obey turn restrictions. To
+ * obey them, build the overlay over the {@link graphs.TurnExpandedGraph} of the road graph, whose vertices are edges.
+ *
+ * @see Partition
+ * @see graphs.TurnExpandedGraph
+ * @see IntOverlaySolver
+ */
+public class MultiLevelOverlay {
+    private final IntGraph graph;
+    private final Partition partition;
+    /**
+     * The originating vertex of each edge.
+     */
+    private final int[] edgeFrom;
+    /**
+     * The boundary vertices of cell c at level l are boundary[l][boundaryOffsets[l][c]] up to but not including
+     * boundary[l][boundaryOffsets[l][c + 1]].
+     */
+    private final int[][] boundaryOffsets;
+    private final int[][] boundary;
+    /**
+     * The index of each vertex among the boundary vertices of its cell at each level, or -1 if it is not a boundary
+     * vertex at that level.
+     */
+    private final int[][] boundaryIndex;
+    /**
+     * The clique of cell c at level l with b boundary vertices stores the distance from boundary vertex i to boundary
+     * vertex j at cliques[l][c][i * b + j].
+     */
+    private final double[][][] cliques;
+    /**
+     * {@link SearchWorkspace.Pool} for the searches that customize cells and unpack paths.
+     */
+    private final SearchWorkspace.Pool workspaces;
+
+    /**
+     * Constructs an overlay of the graph over the partition and customizes every cell for the weights of the graph.
+     *
+     * @param graph     the input graph.
+     * @param partition the partition of the vertices of the graph.
+     */
+    public MultiLevelOverlay(IntGraph graph, Partition partition) {
+        this.graph = graph;
+        this.partition = partition;
+        int n = graph.size();
+        int levels = partition.levels();
+        edgeFrom = new int[graph.edgeCount()];
+        for (int v = 0; v < n; v += 1) {
+            for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e += 1) {
+                edgeFrom[e] = v;
+            }
+        }
+        boundaryOffsets = new int[levels][];
+        boundary = new int[levels][];
+        boundaryIndex = new int[levels][];
+        for (int level = 0; level < levels; level += 1) {
+            boolean[] isBoundary = new boolean[n];
+            for (int e = 0; e < edgeFrom.length; e += 1) {
+                int from = edgeFrom[e];
+                int to = graph.to(e);
+                if (partition.cell(level, from) != partition.cell(level, to)) {
+                    isBoundary[from] = true;
+                    isBoundary[to] = true;
+                }
+            }
+            int cells = partition.cellCount(level);
+            int[] offsets = new int[cells + 1];
+            int[] index = new int[n];
+            for (int v = 0; v < n; v += 1) {
+                if (isBoundary[v]) {
+                    int cell = partition.cell(level, v);
+                    index[v] = offsets[cell + 1];
+                    offsets[cell + 1] += 1;
+                } else {
+                    index[v] = -1;
+                }
+            }
+            for (int cell = 0; cell < cells; cell += 1) {
+                offsets[cell + 1] += offsets[cell];
+            }
+            int[] vertices = new int[offsets[cells]];
+            for (int v = 0; v < n; v += 1) {
+                if (isBoundary[v]) {
+                    vertices[offsets[partition.cell(level, v)] + index[v]] = v;
+                }
+            }
+            boundaryOffsets[level] = offsets;
+            boundary[level] = vertices;
+            boundaryIndex[level] = index;
+        }
+        workspaces = new SearchWorkspace.Pool(n);
+        cliques = new double[levels][][];
+        for (int level = 0; level < levels; level += 1) {
+            cliques[level] = new double[partition.cellCount(level)][];
+            customizeCells(level, IntStream.range(0, partition.cellCount(level)).toArray());
+        }
+    }
+
+    /**
+     * Constructs an overlay for the given graph that shares the partition and boundaries of the given overlay and
+     * copies its cliques, which are then recustomized where needed.
+     *
+     * @param overlay the overlay of a graph with the same vertices and edges.
+     * @param graph   the graph with the new weights.
+     */
+    private MultiLevelOverlay(MultiLevelOverlay overlay, IntGraph graph) {
+        this.graph = graph;
+        this.partition = overlay.partition;
+        this.edgeFrom = overlay.edgeFrom;
+        this.boundaryOffsets = overlay.boundaryOffsets;
+        this.boundary = overlay.boundary;
+        this.boundaryIndex = overlay.boundaryIndex;
+        this.workspaces = overlay.workspaces;
+        this.cliques = new double[overlay.cliques.length][][];
+        for (int level = 0; level < cliques.length; level += 1) {
+            // Only the array of cells is copied: cliques of clean cells are shared, and dirty cells get new cliques.
+            cliques[level] = overlay.cliques[level].clone();
+        }
+    }
+
+    /**
+     * Returns an overlay for the given graph, which must have the same vertices and edges as the graph of this overlay
+     * but may have different weights. Only the cells that contain a changed edge at some level are recustomized, from
+     * the finest level up, which is much faster than rebuilding the overlay when few edges change.
+     *
+     * @param graph        the graph with the new weights.
+     * @param changedEdges the edges whose weights differ from the graph of this overlay.
+     * @return an overlay customized for the weights of the given graph.
+     * @throws IllegalArgumentException if the graph has a different number of edges.
+     */
+    public MultiLevelOverlay customize(IntGraph graph, int[] changedEdges) {
+        if (graph.size() != this.graph.size() || graph.edgeCount() != this.graph.edgeCount()) {
+            throw new IllegalArgumentException("Need a graph with the same vertices and edges");
+        }
+        MultiLevelOverlay result = new MultiLevelOverlay(this, graph);
+        for (int level = 0; level < partition.levels(); level += 1) {
+            // An edge only affects the cliques of the cells that contain both of its ends.
+            int finalLevel = level;
+            int[] dirty = Arrays.stream(changedEdges)
+                    .filter(e -> partition.cell(finalLevel, edgeFrom[e]) == partition.cell(finalLevel, graph.to(e)))
+                    .map(e -> partition.cell(finalLevel, edgeFrom[e]))
+                    .distinct()
+                    .toArray();
+            result.customizeCells(level, dirty);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an overlay for the given graph with every cell recustomized.
+     *
+     * @param graph the graph with the new weights and the same vertices and edges.
+     * @return an overlay customized for the weights of the given graph.
+     */
+    public MultiLevelOverlay customize(IntGraph graph) {
+        return customize(graph, IntStream.range(0, graph.edgeCount()).toArray());
+    }
+
+    /**
+     * Returns the graph this overlay is customized for.
+     *
+     * @return the graph this overlay is customized for.
+     */
+    public IntGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the partition of this overlay.
+     *
+     * @return the partition of this overlay.
+     */
+    public Partition partition() {
+        return partition;
+    }
+
+    /**
+     * Computes the cliques of the given cells at the given level in parallel. Cliques at lower levels must be current.
+     *
+     * @param level the level of the cells.
+     * @param cells the cells to customize.
+     */
+    private void customizeCells(int level, int[] cells) {
+        IntStream.of(cells).parallel().forEach(cell -> {
+            int start = boundaryOffsets[level][cell];
+            int b = boundaryOffsets[level][cell + 1] - start;
+            double[] clique = new double[b * b];
+            SearchWorkspace workspace = workspaces.acquire();
+            try {
+                for (int i = 0; i < b; i += 1) {
+                    search(boundary[level][start + i], -1, level - 1, level, cell, b, workspace);
+                    for (int j = 0; j < b; j += 1) {
+                        clique[i * b + j] = workspace.distTo(boundary[level][start + j]);
+                    }
+                }
+            } finally {
+                workspaces.release(workspace);
+            }
+            cliques[level][cell] = clique;
+        });
+    }
+
+    /**
+     * Returns the path from the source to the target through the inside of the cell at the given level, which
+     * unpacks a clique edge of the cell into the vertices of the graph.
+     *
+     * @param source the boundary vertex to start from.
+     * @param target the boundary vertex to end at.
+     * @param level  the level of the cell.
+     * @return an array of vertices representing the path, including both ends.
+     */
+    int[] unpack(int source, int target, int level) {
+        SearchWorkspace workspace = workspaces.acquire();
+        try {
+            search(source, target, -1, level, partition.cell(level, source), -1, workspace);
+            return workspace.path(target);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the source on the overlay at the given level, restricted to one cell at a bound
+     * level, until the target is settled, the given number of boundary vertices of the bounding cell are settled, or
+     * the cell is exhausted.
+     *
+     * @param source     the vertex to start from.
+     * @param target     the vertex to stop at, or -1.
+     * @param level      the level of the overlay to search, or -1 to search the graph.
+     * @param boundLevel the level of the bounding cell.
+     * @param boundCell  the bounding cell.
+     * @param stopAfter  the number of boundary vertices of the bounding cell to settle before stopping, or -1.
+     * @param workspace  the workspace for the search, which is reset before use.
+     */
+    private void search(int source, int target, int level, int boundLevel, int boundCell, int stopAfter,
+                        SearchWorkspace workspace) {
+        workspace.reset();
+        IntHeapMinPQ perimeter = workspace.perimeter();
+        workspace.set(source, 0.0, -1);
+        perimeter.add(source, 0.0);
+        int settledBoundary = 0;
+        while (!perimeter.isEmpty()) {
+            int from = perimeter.removeMin();
+            if (workspace.isMarked(from)) {
+                continue; // Outdated copy of a vertex that was already settled
+            }
+            workspace.mark(from);
+            if (from == target) {
+                return;
+            } else if (stopAfter >= 0 && boundaryIndex[boundLevel][from] != -1) {
+                settledBoundary += 1;
+                if (settledBoundary == stopAfter) {
+                    return;
+                }
+            }
+            relax(from, level, boundLevel, boundCell, workspace);
+        }
+    }
+
+    /**
+     * Relaxes the arcs leaving the vertex at the given level of the overlay. At level -1, these are the edges of the
+     * graph. At a higher level, these are the clique edges of the vertex's cell and the edges of the graph that leave
+     * the cell, so the vertex must be a boundary vertex at that level. Arcs to vertices outside the bounding cell are
+     * skipped.
+     *
+     * @param from       the vertex to expand.
+     * @param level      the level of the overlay, or -1 for the graph.
+     * @param boundLevel the level of the bounding cell, or -1 for no bound.
+     * @param boundCell  the bounding cell.
+     * @param workspace  the workspace of the search.
+     */
+    void relax(int from, int level, int boundLevel, int boundCell, SearchWorkspace workspace) {
+        double fromDist = workspace.distTo(from);
+        int fromCell = level >= 0 ? partition.cell(level, from) : -1;
+        if (level >= 0) {
+            int start = boundaryOffsets[level][fromCell];
+            int b = boundaryOffsets[level][fromCell + 1] - start;
+            double[] clique = cliques[level][fromCell];
+            int row = boundaryIndex[level][from] * b;
+            for (int j = 0; j < b; j += 1) {
+                int to = boundary[level][start + j];
+                double newDist = fromDist + clique[row + j];
+                if (newDist < workspace.distTo(to) && inBounds(to, boundLevel, boundCell)) {
+                    workspace.set(to, newDist, from);
+                    workspace.perimeter().add(to, newDist);
+                }
+            }
+        }
+        for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e += 1) {
+            int to = graph.to(e);
+            if (level >= 0 && partition.cell(level, to) == fromCell) {
+                continue; // Edges inside the cell are covered by the clique
+            }
+            double newDist = fromDist + graph.weight(e);
+            if (newDist < workspace.distTo(to) && inBounds(to, boundLevel, boundCell)) {
+                workspace.set(to, newDist, from);
+                workspace.perimeter().add(to, newDist);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the vertex is inside the bounding cell.
+     *
+     * @param vertex     the vertex of interest.
+     * @param boundLevel the level of the bounding cell, or -1 for no bound.
+     * @param boundCell  the bounding cell.
+     * @return true if the vertex is inside the bounding cell.
+     */
+    private boolean inBounds(int vertex, int boundLevel, int boundCell) {
+        return boundLevel < 0 || partition.cell(boundLevel, vertex) == boundCell;
+    }
+}
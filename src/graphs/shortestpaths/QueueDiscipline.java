@@ -0,0 +1,37 @@
+package graphs.shortestpaths;
+
+/**
+ * Queue disciplines for label-correcting solvers such as {@link SPFASolver} that decide where a vertex is inserted
+ * into and removed from the queue. The disciplines only change how many relaxations are needed, never the result.
+ *
+ * @see SPFASolver
+ * @see IntSPFASolver
+ */
+public enum QueueDiscipline {
+    /**
+     * First-in, first-out: vertices are always added to the back and removed from the front.
+     */
+    FIFO(false, false),
+    /**
+     * Small Label First: a vertex whose distance is smaller than the distance of the front vertex is added to the
+     * front instead of the back.
+     */
+    SLF(true, false),
+    /**
+     * Large Label Last: while the front vertex's distance exceeds the average distance in the queue, it is moved to
+     * the back before removing a vertex.
+     */
+    LLL(false, true),
+    /**
+     * Both {@link #SLF} insertion and {@link #LLL} removal.
+     */
+    SLF_LLL(true, true);
+
+    final boolean smallLabelFirst;
+    final boolean largeLabelLast;
+
+    QueueDiscipline(boolean smallLabelFirst, boolean largeLabelLast) {
+        this.smallLabelFirst = smallLabelFirst;
+        this.largeLabelLast = largeLabelLast;
+    }
+}
@@ -6,45 +6,114 @@ import graphs.Graph;
 import java.util.*;
 
 /**
- * Shortest Path Faster Algorithm implementation of the {@link ShortestPathSolver} interface.
+ * Shortest Path Faster Algorithm implementation of the {@link ShortestPathSolver} interface. The order in which queued
+ * vertices are processed is determined by a {@link QueueDiscipline}. If a negative cycle is reachable from the start,
+ * the search stops once it finds one and reports it through {@link #negativeCycle()}.
  *
  * @param <V> the type of vertices.
  * @see ShortestPathSolver
+ * @see QueueDiscipline
  */
 public class SPFASolver<V> implements ShortestPathSolver<V> {
     private final Map<V, Edge<V>> edgeTo;
     private final Map<V, Double> distTo;
+    private final List<V> negativeCycle;
 
     /**
-     * Constructs a new instance by executing SPFA on the graph from the start.
+     * Constructs a new instance by executing SPFA with the {@link QueueDiscipline#SLF} discipline on the graph from
+     * the start.
      *
      * @param graph the input graph.
      * @param start the start vertex.
      */
     public SPFASolver(Graph<V> graph, V start) {
+        this(graph, start, QueueDiscipline.SLF);
+    }
+
+    /**
+     * Constructs a new instance by executing SPFA with the given queue discipline on the graph from the start.
+     *
+     * @param graph      the input graph.
+     * @param start      the start vertex.
+     * @param discipline the {@link QueueDiscipline} for ordering the queue.
+     */
+    public SPFASolver(Graph<V> graph, V start, QueueDiscipline discipline) {
         edgeTo = new HashMap<>();
         distTo = new HashMap<>();
-        Queue<V> perimeter = new OptimizedArrayQueueSet<>();
-        perimeter.add(start);
+        // The number of edges on the path that produced each vertex's current distance. A path with at least as many
+        // edges as there are discovered vertices repeats a vertex, and such a repeat can only lower a distance by
+        // going around a negative cycle.
+        Map<V, Integer> edgeCount = new HashMap<>();
+        LabelQueueSet perimeter = new LabelQueueSet(discipline);
         edgeTo.put(start, null);
         distTo.put(start, 0.0);
-        while (!perimeter.isEmpty()) {
+        edgeCount.put(start, 0);
+        perimeter.add(start);
+        List<V> cycle = List.of();
+        while (!perimeter.isEmpty() && cycle.isEmpty()) {
             V from = perimeter.remove();
+            double fromDist = distTo.get(from);
+            int fromCount = edgeCount.get(from);
             for (Edge<V> e : graph.neighbors(from)) {
                 V to = e.to;
                 double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
-                double newDist = distTo.get(from) + e.weight;
+                double newDist = fromDist + e.weight;
                 if (newDist < oldDist) {
                     edgeTo.put(to, e);
                     distTo.put(to, newDist);
-                    perimeter.add(to);
+                    edgeCount.put(to, fromCount + 1);
+                    perimeter.addOrDecrease(to, oldDist, newDist);
+                    if (fromCount + 1 >= distTo.size()) {
+                        // The cycle is usually already in the parent edges. If not, edge counts keep growing around
+                        // it, so a later relaxation checks again, and relaxations that stay short pay nothing.
+                        cycle = BellmanFordSolver.findCycle(edgeTo, List.of(to));
+                        if (!cycle.isEmpty()) {
+                            break;
+                        }
+                    }
                 }
             }
         }
+        negativeCycle = cycle;
+    }
+
+    /**
+     * Returns true if a negative cycle is reachable from the start.
+     *
+     * @return true if a negative cycle is reachable from the start.
+     */
+    public boolean hasNegativeCycle() {
+        return !negativeCycle.isEmpty();
+    }
+
+    /**
+     * Returns a negative cycle reachable from the start as a list of vertices in edge order that starts and ends at
+     * the same vertex, or an empty list if there is none.
+     *
+     * @return a negative cycle reachable from the start, or an empty list.
+     */
+    public List<V> negativeCycle() {
+        return negativeCycle;
+    }
+
+    @Override
+    public ShortestPathTree<V> tree() {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + negativeCycle);
+        }
+        return ShortestPathTree.of(edgeTo, distTo);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if a negative cycle is reachable from the start.
+     */
     @Override
     public List<V> solution(V goal) {
+        if (hasNegativeCycle()) {
+            throw new IllegalStateException("Negative cycle reachable from start: " + negativeCycle);
+        }
         List<V> path = new ArrayList<>();
         V curr = goal;
         path.add(curr);
@@ -57,60 +126,80 @@ public class SPFASolver<V> implements ShortestPathSolver<V> {
     }
 
     /**
-     * Optimized array queue implementation of the {@link Queue} interface.
-     *
-     * @param <E> the type of elements in this queue.
+     * Double-ended queue of vertices without duplicates that orders vertices according to a {@link QueueDiscipline}
+     * using their current distances.
      */
-    private static class OptimizedArrayQueueSet<E> extends AbstractQueue<E> {
+    private class LabelQueueSet {
+        private final QueueDiscipline discipline;
+        private final Deque<V> deque;
+        private final Set<V> set;
         /**
-         * {@link Queue} of elements.
+         * Sum of the current distances of the vertices in this queue for {@link QueueDiscipline#LLL}.
          */
-        private final Queue<E> queue;
-        /**
-         * {@link Set} of elements in this queue.
-         */
-        private final Set<E> set;
-
-        public OptimizedArrayQueueSet() {
-            queue = new ArrayDeque<>();
-            set = new HashSet<>();
-        }
+        private double sum;
 
-        @Override
-        public boolean contains(Object o) {
-            return set.contains(o);
+        LabelQueueSet(QueueDiscipline discipline) {
+            this.discipline = discipline;
+            this.deque = new ArrayDeque<>();
+            this.set = new HashSet<>();
+            this.sum = 0.0;
         }
 
-        @Override
-        public Iterator<E> iterator() {
-            return queue.iterator();
+        boolean isEmpty() {
+            return deque.isEmpty();
         }
 
-        @Override
-        public boolean offer(E e) {
-            if (set.contains(e)) {
-                return false;
+        /**
+         * Adds the vertex, whose current distance has already been stored.
+         *
+         * @param vertex the vertex to add.
+         */
+        void add(V vertex) {
+            double dist = distTo.get(vertex);
+            set.add(vertex);
+            sum += dist;
+            if (discipline.smallLabelFirst && !deque.isEmpty() && dist < distTo.get(deque.peekFirst())) {
+                deque.addFirst(vertex);
+            } else {
+                deque.addLast(vertex);
             }
-            boolean result = queue.offer(e);
-            set.add(e);
-            return result;
         }
 
-        @Override
-        public E peek() {
-            return queue.peek();
-        }
-
-        @Override
-        public E poll() {
-            E element = queue.poll();
-            set.remove(element);
-            return element;
+        /**
+         * Adds the vertex whose distance decreased from the old distance to the new distance, or only accounts for the
+         * decrease if the vertex is already in this queue.
+         *
+         * @param vertex  the vertex whose distance decreased.
+         * @param oldDist the previous distance.
+         * @param newDist the current distance.
+         */
+        void addOrDecrease(V vertex, double oldDist, double newDist) {
+            if (set.contains(vertex)) {
+                sum -= oldDist - newDist;
+            } else {
+                add(vertex);
+            }
         }
 
-        @Override
-        public int size() {
-            return queue.size();
+        /**
+         * Removes and returns the next vertex.
+         *
+         * @return the next vertex.
+         */
+        V remove() {
+            if (discipline.largeLabelLast) {
+                double average = sum / deque.size();
+                for (int i = 1; i < deque.size() && distTo.get(deque.peekFirst()) > average; i += 1) {
+                    deque.addLast(deque.removeFirst());
+                }
+            }
+            V vertex = deque.removeFirst();
+            set.remove(vertex);
+            sum -= distTo.get(vertex);
+            if (deque.isEmpty()) {
+                sum = 0.0; // Discard accumulated rounding error
+            }
+            return vertex;
         }
     }
 }
@@ -0,0 +1,190 @@
+package graphs.shortestpaths;
+
+import minpq.IntHeapMinPQ;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reusable per-query state for searches over an {@link graphs.IntGraph}: tentative distances, parents, a mark per
+ * vertex, and the perimeter priority queue. Each entry is tagged with the version of the search that wrote it, so
+ * {@link #reset()} only increments the version and a search that touches <i>k</i> vertices costs <i>O</i>(<i>k</i>)
+ * rather than <i>O</i>(<i>V</i>) to set up. A workspace may only be used by one search at a time; share workspaces
+ * between threads with a {@link Pool}.
+ *
+ * @see IntDijkstraSolver
+ * @see IntAStarSolver
+ */
+public class SearchWorkspace {
+    private final double[] distTo;
+    private final int[] edgeTo;
+    /**
+     * The version of the search that last wrote the distance and parent of each vertex.
+     */
+    private final int[] written;
+    /**
+     * The version of the search that last marked each vertex.
+     */
+    private final int[] marked;
+    private final IntHeapMinPQ perimeter;
+    private int version;
+
+    /**
+     * Constructs a workspace for graphs with up to the given number of vertices.
+     *
+     * @param size the number of vertices.
+     */
+    public SearchWorkspace(int size) {
+        distTo = new double[size];
+        edgeTo = new int[size];
+        written = new int[size];
+        marked = new int[size];
+        perimeter = new IntHeapMinPQ();
+        version = 0;
+        reset();
+    }
+
+    /**
+     * Prepares this workspace for a new search: every vertex becomes unreached and unmarked, and the perimeter becomes
+     * empty.
+     */
+    public void reset() {
+        version += 1;
+        if (version == Integer.MAX_VALUE) {
+            // Rare wraparound: clear the tags so that no stale entry can match a reused version.
+            Arrays.fill(written, 0);
+            Arrays.fill(marked, 0);
+            version = 1;
+        }
+        perimeter.clear();
+    }
+
+    /**
+     * Returns the number of vertices this workspace supports.
+     *
+     * @return the number of vertices this workspace supports.
+     */
+    public int size() {
+        return distTo.length;
+    }
+
+    /**
+     * Returns the tentative distance to the vertex in the current search, or infinity if it has not been reached.
+     *
+     * @param vertex the vertex of interest.
+     * @return the tentative distance to the vertex.
+     */
+    public double distTo(int vertex) {
+        return written[vertex] == version ? distTo[vertex] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the parent of the vertex in the current search, or -1 if it has no parent.
+     *
+     * @param vertex the vertex of interest.
+     * @return the parent of the vertex.
+     */
+    public int edgeTo(int vertex) {
+        return written[vertex] == version ? edgeTo[vertex] : -1;
+    }
+
+    /**
+     * Sets the tentative distance and parent of the vertex in the current search.
+     *
+     * @param vertex the vertex to update.
+     * @param dist   the tentative distance to the vertex.
+     * @param parent the parent of the vertex, or -1 if it has no parent.
+     */
+    public void set(int vertex, double dist, int parent) {
+        distTo[vertex] = dist;
+        edgeTo[vertex] = parent;
+        written[vertex] = version;
+    }
+
+    /**
+     * Marks the vertex in the current search.
+     *
+     * @param vertex the vertex to mark.
+     */
+    public void mark(int vertex) {
+        marked[vertex] = version;
+    }
+
+    /**
+     * Returns true if the vertex has been marked in the current search.
+     *
+     * @param vertex the vertex of interest.
+     * @return true if the vertex has been marked in the current search.
+     */
+    public boolean isMarked(int vertex) {
+        return marked[vertex] == version;
+    }
+
+    /**
+     * Returns the perimeter priority queue, which is empty at the start of each search.
+     *
+     * @return the perimeter priority queue.
+     */
+    public IntHeapMinPQ perimeter() {
+        return perimeter;
+    }
+
+    /**
+     * Returns the path ending at the goal in the current search by following parents back to the start.
+     *
+     * @param goal the goal vertex.
+     * @return an array of vertices representing the path.
+     */
+    public int[] path(int goal) {
+        int length = 1;
+        for (int curr = goal; edgeTo(curr) != -1; curr = edgeTo(curr)) {
+            length += 1;
+        }
+        int[] path = new int[length];
+        int curr = goal;
+        for (int i = length - 1; i >= 0; i -= 1) {
+            path[i] = curr;
+            curr = edgeTo(curr);
+        }
+        return path;
+    }
+
+    /**
+     * Thread-safe pool of workspaces of the same size. Each query borrows a workspace for its duration, so the pool
+     * only ever holds as many workspaces as there have been concurrent queries.
+     */
+    public static class Pool {
+        private final int size;
+        private final Queue<SearchWorkspace> idle;
+
+        /**
+         * Constructs an empty pool of workspaces for graphs with up to the given number of vertices.
+         *
+         * @param size the number of vertices.
+         */
+        public Pool(int size) {
+            this.size = size;
+            this.idle = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+         * Returns an idle workspace, or a new workspace if none are idle.
+         *
+         * @return a workspace for the exclusive use of the caller until it is released.
+         */
+        public SearchWorkspace acquire() {
+            SearchWorkspace workspace = idle.poll();
+            return workspace != null ? workspace : new SearchWorkspace(size);
+        }
+
+        /**
+         * Returns the workspace to this pool. Results read from the workspace are invalid after it is released.
+         *
+         * @param workspace the workspace returned by {@link #acquire()}.
+         */
+        public void release(SearchWorkspace workspace) {
+            idle.offer(workspace);
+        }
+    }
+}
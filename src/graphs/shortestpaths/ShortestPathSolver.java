@@ -2,7 +2,9 @@ package graphs.shortestpaths;
 
 import graphs.Graph;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Single-source shortest paths from a start vertex to all reachable vertices.
@@ -12,6 +14,7 @@ import java.util.List;
  * @see Graph
  * @see DijkstraSolver
  * @see ToposortDAGSolver
+ * @see ShortestPathTree
  */
 public interface ShortestPathSolver<V> {
     /**
@@ -22,6 +25,23 @@ public interface ShortestPathSolver<V> {
      */
     List<V> solution(V goal);
 
+    /**
+     * Returns the shortest-path tree from the start vertex as compact arrays.
+     *
+     * @return the shortest-path tree from the start vertex.
+     */
+    ShortestPathTree<V> tree();
+
+    /**
+     * Returns the single-pair shortest paths from a start vertex to each of the goals in one pass.
+     *
+     * @param goals the goal vertices.
+     * @return a map of each goal to a list of vertices representing its shortest path.
+     */
+    default Map<V, List<V>> solutions(Collection<? extends V> goals) {
+        return tree().solutions(goals);
+    }
+
     /**
      * Constructor for {@link ShortestPathSolver}.
      *
@@ -0,0 +1,173 @@
+package graphs.shortestpaths;
+
+import graphs.Edge;
+
+import java.util.*;
+
+/**
+ * Shortest-path tree from a start vertex stored as compact arrays: each reached vertex has an integer id, and the tree
+ * is given by the parent id and the distance of every vertex. Paths to many goals can be reconstructed in one pass
+ * with {@link #solutions(Collection)}.
+ *
+ * @param <V> the type of vertices.
+ * @see ShortestPathSolver
+ * @see IntShortestPathSolver
+ */
+public class ShortestPathTree<V> {
+    /**
+     * {@link List} of vertices indexed by id.
+     */
+    private final List<V> vertices;
+    /**
+     * {@link Map} of vertices to their ids.
+     */
+    private final Map<V, Integer> ids;
+    private final int[] parent;
+    private final double[] distTo;
+
+    /**
+     * Constructs a tree from the given vertices and their parents and distances, all indexed by id.
+     *
+     * @param vertices the vertices indexed by id.
+     * @param parent   the parent id of each vertex, or -1 for the start and unreached vertices.
+     * @param distTo   the distance to each vertex, or infinity for unreached vertices.
+     */
+    public ShortestPathTree(List<V> vertices, int[] parent, double[] distTo) {
+        if (vertices.size() != parent.length || vertices.size() != distTo.length) {
+            throw new IllegalArgumentException("Vertices, parents, and distances must have the same length");
+        }
+        this.vertices = List.copyOf(vertices);
+        this.ids = new HashMap<>();
+        for (int id = 0; id < vertices.size(); id += 1) {
+            ids.put(vertices.get(id), id);
+        }
+        this.parent = parent;
+        this.distTo = distTo;
+    }
+
+    /**
+     * Returns the tree described by the edge to each reached vertex from its parent and the distance to each reached
+     * vertex, as kept by the map-based solvers.
+     *
+     * @param edgeTo the edge to each reached vertex from its parent, or null for the start.
+     * @param distTo the distance to each reached vertex.
+     * @param <V>    the type of vertices.
+     * @return the shortest-path tree.
+     */
+    static <V> ShortestPathTree<V> of(Map<V, Edge<V>> edgeTo, Map<V, Double> distTo) {
+        List<V> vertices = new ArrayList<>(distTo.keySet());
+        Map<V, Integer> ids = new HashMap<>();
+        for (int id = 0; id < vertices.size(); id += 1) {
+            ids.put(vertices.get(id), id);
+        }
+        int[] parent = new int[vertices.size()];
+        double[] dist = new double[vertices.size()];
+        for (int id = 0; id < vertices.size(); id += 1) {
+            V vertex = vertices.get(id);
+            Edge<V> e = edgeTo.get(vertex);
+            parent[id] = e == null ? -1 : ids.get(e.from);
+            dist[id] = distTo.get(vertex);
+        }
+        return new ShortestPathTree<>(vertices, parent, dist);
+    }
+
+    /**
+     * Returns the number of vertices in this tree.
+     *
+     * @return the number of vertices in this tree.
+     */
+    public int size() {
+        return vertices.size();
+    }
+
+    /**
+     * Returns the id of the given vertex, or -1 if the vertex is not in this tree.
+     *
+     * @param vertex the vertex of interest.
+     * @return the id of the given vertex, or -1.
+     */
+    public int id(V vertex) {
+        return ids.getOrDefault(vertex, -1);
+    }
+
+    /**
+     * Returns the vertex with the given id.
+     *
+     * @param id the id of interest.
+     * @return the vertex with the given id.
+     */
+    public V vertex(int id) {
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns the parent id of every vertex.
+     *
+     * @return a new array of the parent id of each vertex, or -1 for the start and unreached vertices.
+     */
+    public int[] parents() {
+        return Arrays.copyOf(parent, parent.length);
+    }
+
+    /**
+     * Returns the distance to every vertex.
+     *
+     * @return a new array of the distance to each vertex, or infinity for unreached vertices.
+     */
+    public double[] distances() {
+        return Arrays.copyOf(distTo, distTo.length);
+    }
+
+    /**
+     * Returns the shortest-path distance from the start to the goal, or infinity if the goal is not in this tree.
+     *
+     * @param goal the goal vertex.
+     * @return the shortest-path distance from the start to the goal.
+     */
+    public double distTo(V goal) {
+        int id = id(goal);
+        return id == -1 ? Double.POSITIVE_INFINITY : distTo[id];
+    }
+
+    /**
+     * Returns the shortest path from the start to the goal.
+     *
+     * @param goal the goal vertex.
+     * @return a list of vertices representing the shortest path.
+     */
+    public List<V> solution(V goal) {
+        return solutions(List.of(goal)).get(goal);
+    }
+
+    /**
+     * Returns the shortest paths from the start to each of the goals in one pass. Paths that share a prefix only walk
+     * the tree for their distinct suffixes. A goal that is not in this tree has the single-vertex path to itself.
+     *
+     * @param goals the goal vertices.
+     * @return a map of each goal to a list of vertices representing its shortest path.
+     */
+    public Map<V, List<V>> solutions(Collection<? extends V> goals) {
+        Map<V, List<V>> result = new HashMap<>();
+        List<V> indexed = new ArrayList<>(goals.size());
+        for (V goal : goals) {
+            if (ids.containsKey(goal)) {
+                indexed.add(goal);
+            } else {
+                result.put(goal, List.of(goal));
+            }
+        }
+        int[] goalIds = new int[indexed.size()];
+        for (int i = 0; i < goalIds.length; i += 1) {
+            goalIds[i] = ids.get(indexed.get(i));
+        }
+        int[][] paths = IntShortestPathSolver.paths(parent, goalIds);
+        for (int i = 0; i < paths.length; i += 1) {
+            List<V> path = new ArrayList<>(paths[i].length);
+            for (int id : paths[i]) {
+                path.add(vertices.get(id));
+            }
+            result.put(indexed.get(i), path);
+        }
+        return result;
+    }
+}
@@ -7,6 +7,8 @@ import java.util.*;
 
 /**
  * Topological sorting implementation of the {@link ShortestPathSolver} interface for <b>directed acyclic graphs</b>.
+ * Vertices are relaxed in topological order as Kahn's algorithm produces it, so the order is never materialized and
+ * neither step recurses.
  *
  * @param <V> the type of vertices.
  * @see ShortestPathSolver
@@ -20,61 +22,75 @@ public class ToposortDAGSolver<V> implements ShortestPathSolver<V> {
      *
      * @param graph the input graph.
      * @param start the start vertex.
+     * @throws IllegalArgumentException if a cycle is reachable from the start.
      */
     public ToposortDAGSolver(Graph<V> graph, V start) {
         edgeTo = new HashMap<>();
         distTo = new HashMap<>();
-        // TODO: Replace with your code
-        List<V> topologicalOrder = new ArrayList<>();
-        Set<V> visited = new HashSet<>();
-        dfsPostOrder(graph, start, visited, topologicalOrder);
-        Collections.reverse(topologicalOrder);
-
-        for (V vertex : topologicalOrder) {
-            distTo.put(vertex, Double.POSITIVE_INFINITY);
-            edgeTo.put(vertex, null);
-        }
+        // Each vertex leaves the map once all of its incoming edges have been relaxed.
+        Map<V, Integer> inDegree = inDegrees(graph, start);
+        Queue<V> ready = new ArrayDeque<>();
+        ready.add(start);
+        edgeTo.put(start, null);
         distTo.put(start, 0.0);
-
-        for (V vertex : topologicalOrder) {
-            if (distTo.get(vertex) < Double.POSITIVE_INFINITY) {
-                for (Edge<V> edge : graph.neighbors(vertex)) {
-                    relaxEdge(edge);
+        while (!ready.isEmpty()) {
+            V from = ready.remove();
+            double fromDist = distTo.get(from);
+            for (Edge<V> e : graph.neighbors(from)) {
+                V to = e.to;
+                double newDist = fromDist + e.weight;
+                Double oldDist = distTo.get(to);
+                if (oldDist == null || newDist < oldDist) {
+                    edgeTo.put(to, e);
+                    distTo.put(to, newDist);
+                }
+                int remaining = inDegree.get(to) - 1;
+                if (remaining == 0) {
+                    inDegree.remove(to);
+                    ready.add(to);
+                } else {
+                    inDegree.put(to, remaining);
                 }
             }
         }
-    }
-
-    private void relaxEdge(Edge<V> edge) {
-        V from = edge.from;
-        V to = edge.to;
-        double weight = edge.weight;
-        if (distTo.get(to) > distTo.get(from) + weight) {
-            distTo.put(to, distTo.get(from) + weight);
-            edgeTo.put(to, edge);
+        if (!inDegree.isEmpty()) {
+            throw new IllegalArgumentException("Graph has a cycle reachable from " + start);
         }
     }
 
     /**
-     * Recursively adds nodes from the graph to the result in DFS postorder from the start vertex.
+     * Returns the number of incoming edges from reachable vertices for every vertex reachable from the start except
+     * the start itself, using an iterative breadth-first search.
      *
-     * @param graph   the input graph.
-     * @param start   the start vertex.
-     * @param visited the set of visited vertices.
-     * @param result  the destination for adding nodes.x
+     * @param graph the input graph.
+     * @param start the start vertex.
+     * @return a map of each reachable vertex other than the start to its number of incoming edges.
      */
-    private void dfsPostOrder(Graph<V> graph, V start, Set<V> visited, List<V> result) {
-        // TODO: Replace with your code
-        if (!visited.contains(start)) {
-            visited.add(start);
-            for (Edge<V> edge : graph.neighbors(start)) {
-                V neighbour = edge.to;
-                if (!visited.contains(neighbour)) {
-                    dfsPostOrder(graph, neighbour, visited, result);
+    private Map<V, Integer> inDegrees(Graph<V> graph, V start) {
+        Map<V, Integer> result = new HashMap<>();
+        Queue<V> queue = new ArrayDeque<>();
+        queue.add(start);
+        result.put(start, 0);
+        while (!queue.isEmpty()) {
+            V from = queue.remove();
+            for (Edge<V> e : graph.neighbors(from)) {
+                Integer count = result.get(e.to);
+                if (count == null) {
+                    queue.add(e.to);
+                    count = 0;
                 }
+                result.put(e.to, count + 1);
             }
-            result.add(start);
         }
+        if (result.remove(start) != 0) {
+            throw new IllegalArgumentException("Graph has a cycle through " + start);
+        }
+        return result;
+    }
+
+    @Override
+    public ShortestPathTree<V> tree() {
+        return ShortestPathTree.of(edgeTo, distTo);
     }
 
     @Override
@@ -89,4 +105,4 @@ public class ToposortDAGSolver<V> implements ShortestPathSolver<V> {
         Collections.reverse(path);
         return path;
     }
-}
\ No newline at end of file
+}
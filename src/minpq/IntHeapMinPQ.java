@@ -0,0 +1,134 @@
+package minpq;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary heap of {@code int} elements with {@code double} priority values. Unlike {@link MinPQ}, the same element may
+ * be added more than once and priorities cannot be changed: callers add the element again with its new priority and
+ * skip outdated copies as they are removed (lazy deletion). Elements and priorities are stored in primitive arrays, so
+ * no objects are allocated per operation.
+ *
+ * @see MinPQ
+ */
+public class IntHeapMinPQ {
+    private int[] elements;
+    private double[] priorities;
+    private int size;
+
+    /**
+     * Constructs an empty instance.
+     */
+    public IntHeapMinPQ() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty instance with room for the given number of elements before resizing.
+     *
+     * @param capacity the initial capacity.
+     */
+    public IntHeapMinPQ(int capacity) {
+        elements = new int[Math.max(1, capacity)];
+        priorities = new double[elements.length];
+        size = 0;
+    }
+
+    /**
+     * Adds an element with the given priority value.
+     *
+     * @param element  the element to add.
+     * @param priority the priority value for the element.
+     */
+    public void add(int element, double priority) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, 2 * size);
+            priorities = Arrays.copyOf(priorities, 2 * size);
+        }
+        int i = size;
+        size += 1;
+        // Sift up by moving parents down until the new element's position is found.
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            elements[i] = elements[parent];
+            priorities[i] = priorities[parent];
+            i = parent;
+        }
+        elements[i] = element;
+        priorities[i] = priority;
+    }
+
+    /**
+     * Returns the minimum priority value.
+     *
+     * @return the minimum priority value.
+     * @throws NoSuchElementException if this priority queue is empty.
+     */
+    public double peekMinPriority() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return priorities[0];
+    }
+
+    /**
+     * Returns and removes the element with the minimum priority value.
+     *
+     * @return the element with the minimum priority value.
+     * @throws NoSuchElementException if this priority queue is empty.
+     */
+    public int removeMin() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        int result = elements[0];
+        size -= 1;
+        int element = elements[size];
+        double priority = priorities[size];
+        int i = 0;
+        // Sift down by moving the smaller child up until the last element's position is found.
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child += 1;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            elements[i] = elements[child];
+            priorities[i] = priorities[child];
+            i = child;
+        }
+        elements[i] = element;
+        priorities[i] = priority;
+        return result;
+    }
+
+    /**
+     * Removes all elements from this priority queue while keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of elements in this priority queue.
+     *
+     * @return the number of elements in this priority queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this priority queue contains no elements.
+     *
+     * @return true if this priority queue contains no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
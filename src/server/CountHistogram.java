@@ -0,0 +1,72 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of per-query counts, such as the number of vertices a route search settles, with the same
+ * logarithmic buckets as {@link LatencyHistogram}: bucket i counts values from 2<sup>i</sup> up to 2<sup>i + 1</sup>,
+ * with 0 counted in the first bucket, so that a slow query's outlier work shows up apart from the average.
+ *
+ * @see LatencyHistogram
+ * @see Metrics
+ */
+public class CountHistogram {
+    /**
+     * The number of buckets. The last bucket also counts every larger value.
+     */
+    public static final int BUCKETS = 32;
+    private final AtomicLongArray counts;
+    private final LongAdder total;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public CountHistogram() {
+        counts = new AtomicLongArray(BUCKETS);
+        total = new LongAdder();
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param value the non-negative value.
+     */
+    public void record(long value) {
+        int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, value)));
+        counts.incrementAndGet(bucket);
+        total.add(value);
+    }
+
+    /**
+     * Returns the greatest value in the given bucket.
+     *
+     * @param bucket the bucket index.
+     * @return the inclusive upper bound of the bucket.
+     */
+    public static long upperBound(int bucket) {
+        return (1L << (bucket + 1)) - 1;
+    }
+
+    /**
+     * Returns the number of values in each bucket.
+     *
+     * @return a new array of the count of each bucket.
+     */
+    public long[] counts() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i += 1) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum of the recorded values.
+     */
+    public long total() {
+        return total.sum();
+    }
+}
@@ -0,0 +1,153 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of request latencies with logarithmic buckets: bucket i counts latencies from 2<sup>i</sup> up
+ * to 2<sup>i + 1</sup> microseconds, so percentiles are accurate to within a factor of 2 from a microsecond to over
+ * half an hour while recording stays a single atomic increment.
+ *
+ * @see RequestExecutor
+ */
+public class LatencyHistogram {
+    /**
+     * The number of buckets. The last bucket also counts every longer latency.
+     */
+    public static final int BUCKETS = 32;
+    private final AtomicLongArray counts;
+    private final LongAdder totalMicros;
+    private final AtomicLong maxMicros;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKETS);
+        totalMicros = new LongAdder();
+        maxMicros = new AtomicLong();
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Returns the exclusive upper bound of the given bucket in milliseconds.
+     *
+     * @param bucket the bucket index.
+     * @return the upper bound of the bucket in milliseconds.
+     */
+    public static double upperBoundMillis(int bucket) {
+        return (1L << (bucket + 1)) / 1000.0;
+    }
+
+    /**
+     * Returns the number of latencies in each bucket.
+     *
+     * @return a new array of the count of each bucket.
+     */
+    public long[] counts() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i += 1) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of recorded latencies.
+     */
+    public long count() {
+        long result = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sum of the recorded latencies in milliseconds.
+     *
+     * @return the sum of the recorded latencies in milliseconds.
+     */
+    public double totalMillis() {
+        return totalMicros.sum() / 1000.0;
+    }
+
+    /**
+     * Returns the maximum recorded latency in milliseconds, or 0 if there are none.
+     *
+     * @return the maximum recorded latency in milliseconds.
+     */
+    public double maxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Returns an upper bound on the given percentile of the recorded latencies in milliseconds: the upper bound of the
+     * bucket containing the percentile, capped at the maximum.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return an upper bound on the percentile in milliseconds, or 0 if there are no latencies.
+     */
+    public double percentileMillis(double percentile) {
+        long[] snapshot = counts();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundMillis(i), maxMillis());
+            }
+        }
+        return maxMillis();
+    }
+
+    /**
+     * Returns a summary of this histogram for reporting as JSON.
+     *
+     * @return a summary of this histogram.
+     */
+    public Summary summary() {
+        Summary summary = new Summary();
+        summary.count = count();
+        summary.meanMillis = summary.count == 0 ? 0 : totalMillis() / summary.count;
+        summary.p50Millis = percentileMillis(50);
+        summary.p90Millis = percentileMillis(90);
+        summary.p99Millis = percentileMillis(99);
+        summary.maxMillis = maxMillis();
+        return summary;
+    }
+
+    /**
+     * Count, mean, percentiles, and maximum of a histogram in milliseconds.
+     */
+    public static class Summary {
+        public long count;
+        public double meanMillis;
+        public double p50Millis;
+        public double p90Millis;
+        public double p99Millis;
+        public double maxMillis;
+    }
+}
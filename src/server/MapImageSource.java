@@ -0,0 +1,56 @@
+package server;
+
+import org.locationtech.spatial4j.shape.Point;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Source of static map images with an optional route and location pins, such as a remote map API or a local stub for
+ * load tests. Zoom levels follow the Mapbox Static Images API at @2x, whose 512-pixel tiles are drawn at twice their
+ * size, so an image at zoom level z shows the detail of 256-pixel tiles at zoom level z + 2. Routes sent to clients for
+ * a zoom level are simplified at that same detail, as {@link #tileZoom(int)} returns.
+ *
+ * @see MapboxImageSource
+ * @see StubImageSource
+ * @see TileImageSource
+ */
+public interface MapImageSource {
+    /**
+     * Returns the map image as a stream of PNG bytes. Implementations may block, so callers should not call this on a
+     * shared request thread.
+     *
+     * @param center    the center of the map image.
+     * @param zoom      the zoom level.
+     * @param width     the width of the window.
+     * @param height    the height of the window.
+     * @param routeId   the id of the route, which names its start and goal vertex, or null if there is no route.
+     * @param route     the list of route points, which may be empty.
+     * @param locations the list of locations to pin, which may be empty.
+     * @return a stream of the PNG bytes of the map image.
+     * @throws IOException if the image cannot be produced.
+     */
+    InputStream image(Point center, int zoom, int width, int height, String routeId, List<Point> route,
+                      List<Point> locations) throws IOException;
+
+    /**
+     * Returns the zoom level of 256-pixel tiles whose pixels are the pixels of an image at the given zoom level.
+     *
+     * @param zoom the zoom level of an image.
+     * @return the zoom level of 256-pixel tiles drawn at the same scale.
+     */
+    static int tileZoom(int zoom) {
+        return zoom + 2;
+    }
+
+    /**
+     * Returns true if producing an image is CPU-heavy work, such as rendering it locally, that should run on a bounded
+     * pool of threads. Sources that mostly wait, such as on a remote API, should run on the request's own thread.
+     *
+     * @return true if producing an image is CPU-heavy work.
+     */
+    default boolean isComputeBound() {
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+package server;
+
+import org.locationtech.spatial4j.shape.Point;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * {@link MapImageSource} backed by the Mapbox Static Images API. Connections time out rather than wait forever on a
+ * slow response. Routes are simplified for the zoom level before encoding so that long routes fit in the URL.
+ *
+ * @see MapImageSource
+ * @see <a href="https://docs.mapbox.com/api/maps/static-images/">Mapbox Static Images API</a>
+ */
+public class MapboxImageSource implements MapImageSource {
+    private final String token;
+    /**
+     * The number of milliseconds to wait to connect and then for each read before giving up.
+     */
+    private final int timeoutMillis;
+    private final PolylineCache polylines;
+
+    /**
+     * Constructs an image source with the given Mapbox access token and timeout.
+     *
+     * @param token         the Mapbox access token.
+     * @param timeoutMillis the number of milliseconds to wait to connect and for each read.
+     * @param polylines     the cache of simplified and encoded routes.
+     */
+    public MapboxImageSource(String token, int timeoutMillis, PolylineCache polylines) {
+        this.token = token;
+        this.timeoutMillis = timeoutMillis;
+        this.polylines = polylines;
+    }
+
+    @Override
+    public InputStream image(Point center, int zoom, int width, int height, String routeId, List<Point> route,
+                             List<Point> locations) throws IOException {
+        URLConnection connection = url(center, zoom, width, height, routeId, route, locations).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        return connection.getInputStream();
+    }
+
+    /**
+     * Return the API URL for retrieving the map image.
+     *
+     * @param center    the center of the map image.
+     * @param width     the width of the window.
+     * @param height    the height of the window.
+     * @param routeId   the id of the route (or null).
+     * @param route     the list of route points (or null).
+     * @param locations the list of locations (or null).
+     * @return the URL for retrieving the map image.
+     * @throws MalformedURLException if the URL is invalid.
+     */
+    private URL url(Point center, int zoom, int width, int height, String routeId, List<Point> route,
+                    List<Point> locations) throws MalformedURLException {
+        StringBuilder overlay = new StringBuilder();
+        if (route != null && !route.isEmpty()) {
+            overlay.append("path-4+6cb5e6-1(");
+            String polyline = polylines.encoded(routeId, route, MapImageSource.tileZoom(zoom));
+            overlay.append(URLEncoder.encode(polyline, StandardCharsets.UTF_8));
+            overlay.append("),");
+        }
+        if (locations != null && !locations.isEmpty()) {
+            for (Point location : locations) {
+                overlay.append("pin-s(");
+                overlay.append(location.getLon());
+                overlay.append(',');
+                overlay.append(location.getLat());
+                overlay.append("),");
+            }
+        }
+        if (!overlay.isEmpty()) {
+            // Replace the trailing comma with a forward slash
+            overlay.setCharAt(overlay.length() - 1, '/');
+        }
+        return new URL(String.format(
+                "https://api.mapbox.com/"
+                        // {username}/{style_id} and {overlay} (must include trailing slash)
+                        + "styles/v1/%s/%s/static/%s"
+                        // {lon},{lat},{zoom}/{width}x{height}{@2x}
+                        + "%f,%f,%d/%dx%d%s"
+                        // Access token and optional parameters
+                        + "?access_token=%s&logo=false&attribution=false",
+                "mapbox",
+                "cj7t3i5yj0unt2rmt3y4b5e32",
+                overlay,
+                center.getLon(), center.getLat(), zoom,
+                (int) Math.ceil(width / 2.), (int) Math.ceil(height / 2.), "@2x",
+                token
+        ));
+    }
+}
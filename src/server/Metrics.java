@@ -0,0 +1,282 @@
+package server;
+
+import cache.LRUCache;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe registry of timers, histograms, counters, and gauges, reported in the Prometheus text exposition format.
+ * Timers are {@link LatencyHistogram}s and histograms are {@link CountHistogram}s, whose power-of-two buckets become
+ * cumulative histogram buckets. Names may carry labels in braces, such as
+ * {@code husky_cache_hits_total{cache="routes"}}, and series with the same base name are reported together under one
+ * type.
+ *
+ * @see LatencyHistogram
+ * @see CountHistogram
+ * @see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Exposition formats</a>
+ */
+public class Metrics {
+    private final Map<String, LatencyHistogram> timers;
+    private final Map<String, CountHistogram> histograms;
+    private final Map<String, Sample> samples;
+
+    /**
+     * Constructs an empty registry.
+     */
+    public Metrics() {
+        timers = new ConcurrentHashMap<>();
+        histograms = new ConcurrentHashMap<>();
+        samples = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the timer with the given name, registering a new timer if absent.
+     *
+     * @param name the name of the timer, in seconds by convention.
+     * @return the timer with the given name.
+     */
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, (k) -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers an existing histogram as the timer with the given name.
+     *
+     * @param name      the name of the timer.
+     * @param histogram the histogram of latencies.
+     */
+    public void timer(String name, LatencyHistogram histogram) {
+        timers.put(name, histogram);
+    }
+
+    /**
+     * Runs the task and records its latency, even if it throws, in the timer with the given name.
+     *
+     * @param name the name of the timer.
+     * @param task the task to run.
+     * @param <T>  the type of the result.
+     * @return the result of the task.
+     */
+    public <T> T time(String name, Supplier<T> task) {
+        LatencyHistogram histogram = timer(name);
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the histogram of per-query counts with the given name, registering a new histogram if absent.
+     *
+     * @param name the name of the histogram, in the unit of the counts by convention.
+     * @return the histogram with the given name.
+     */
+    public CountHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, (k) -> new CountHistogram());
+    }
+
+    /**
+     * Returns the counter with the given name, registering a new counter if absent.
+     *
+     * @param name the name of the counter, ending in _total by convention.
+     * @return the counter with the given name.
+     * @throws IllegalArgumentException if the name is registered to a gauge or to a counter read from a supplier.
+     */
+    public LongAdder counter(String name) {
+        Sample sample = samples.computeIfAbsent(name, (k) -> {
+            LongAdder adder = new LongAdder();
+            return new Sample("counter", adder::doubleValue, adder);
+        });
+        if (sample.adder == null) {
+            throw new IllegalArgumentException("Not a counter that can be incremented: " + name);
+        }
+        return sample.adder;
+    }
+
+    /**
+     * Registers a counter whose value is read from the supplier when reported, which must never decrease.
+     *
+     * @param name  the name of the counter.
+     * @param value the supplier of the current value.
+     */
+    public void counter(String name, DoubleSupplier value) {
+        samples.put(name, new Sample("counter", value, null));
+    }
+
+    /**
+     * Registers a gauge whose value is read from the supplier when reported.
+     *
+     * @param name  the name of the gauge.
+     * @param value the supplier of the current value.
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        samples.put(name, new Sample("gauge", value, null));
+    }
+
+    /**
+     * Registers the size, hits, and misses of the cache under the given cache label.
+     *
+     * @param name  the value of the cache label.
+     * @param cache the cache to report.
+     */
+    public void cache(String name, LRUCache<?, ?> cache) {
+        String label = "{cache=\"" + name + "\"}";
+        gauge("husky_cache_size" + label, cache::size);
+        counter("husky_cache_hits_total" + label, cache::hits);
+        counter("husky_cache_misses_total" + label, cache::misses);
+    }
+
+    /**
+     * Registers gauges for heap and non-heap memory, live threads, and uptime, and counters for the number and total
+     * time of collections by each garbage collector.
+     */
+    public void jvm() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm_memory_used_bytes{area=\"heap\"}", () -> memory.getHeapMemoryUsage().getUsed());
+        gauge("jvm_memory_committed_bytes{area=\"heap\"}", () -> memory.getHeapMemoryUsage().getCommitted());
+        gauge("jvm_memory_max_bytes{area=\"heap\"}", () -> memory.getHeapMemoryUsage().getMax());
+        gauge("jvm_memory_used_bytes{area=\"nonheap\"}", () -> memory.getNonHeapMemoryUsage().getUsed());
+        gauge("jvm_memory_committed_bytes{area=\"nonheap\"}", () -> memory.getNonHeapMemoryUsage().getCommitted());
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String label = "{gc=\"" + gc.getName() + "\"}";
+            counter("jvm_gc_collections_total" + label, gc::getCollectionCount);
+            counter("jvm_gc_collection_seconds_total" + label, () -> gc.getCollectionTime() / 1000.0);
+        }
+        gauge("jvm_threads_live", ManagementFactory.getThreadMXBean()::getThreadCount);
+        gauge("process_uptime_seconds", () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    /**
+     * Returns every registered metric in the Prometheus text exposition format.
+     *
+     * @return the metrics as Prometheus text.
+     */
+    public String prometheus() {
+        StringBuilder result = new StringBuilder();
+        String lastBase = null;
+        for (Map.Entry<String, Sample> entry : sorted(samples).entrySet()) {
+            String base = baseName(entry.getKey());
+            if (!base.equals(lastBase)) {
+                result.append("# TYPE ").append(base).append(' ').append(entry.getValue().type).append('\n');
+                lastBase = base;
+            }
+            result.append(entry.getKey()).append(' ').append(entry.getValue().value.getAsDouble()).append('\n');
+        }
+        lastBase = null;
+        for (Map.Entry<String, LatencyHistogram> entry : sorted(timers).entrySet()) {
+            String base = baseName(entry.getKey());
+            if (!base.equals(lastBase)) {
+                result.append("# TYPE ").append(base).append(" histogram\n");
+                lastBase = base;
+            }
+            LatencyHistogram histogram = entry.getValue();
+            appendHistogram(result, entry.getKey(), histogram.counts(),
+                    (i) -> LatencyHistogram.upperBoundMillis(i) / 1000, histogram.totalMillis() / 1000);
+        }
+        lastBase = null;
+        for (Map.Entry<String, CountHistogram> entry : sorted(histograms).entrySet()) {
+            String base = baseName(entry.getKey());
+            if (!base.equals(lastBase)) {
+                result.append("# TYPE ").append(base).append(" histogram\n");
+                lastBase = base;
+            }
+            CountHistogram histogram = entry.getValue();
+            appendHistogram(result, entry.getKey(), histogram.counts(), CountHistogram::upperBound,
+                    histogram.total());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Appends the cumulative buckets, sum, and count of one histogram series.
+     *
+     * @param result the text to append to.
+     * @param name   the name of the series, which may end with labels in braces.
+     * @param counts the number of values in each bucket.
+     * @param bounds the inclusive upper bound of each bucket but the last, which is unbounded.
+     * @param sum    the sum of the values.
+     */
+    private static void appendHistogram(StringBuilder result, String name, long[] counts, IntToDoubleFunction bounds,
+                                        double sum) {
+        String base = baseName(name);
+        String labels = name.substring(base.length());
+        // Strip the braces so that the bucket bound can be appended to the labels.
+        labels = labels.isEmpty() ? "" : labels.substring(1, labels.length() - 1) + ",";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length - 1; i += 1) {
+            cumulative += counts[i];
+            result.append(base).append("_bucket{").append(labels)
+                    .append("le=\"").append(bounds.applyAsDouble(i)).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        cumulative += counts[counts.length - 1];
+        result.append(base).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(cumulative)
+                .append('\n');
+        String suffix = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        result.append(base).append("_sum").append(suffix).append(' ').append(sum).append('\n');
+        result.append(base).append("_count").append(suffix).append(' ').append(cumulative).append('\n');
+    }
+
+    /**
+     * Returns a copy of the map sorted by base name and then by full name, so that the series of each base name are
+     * adjacent.
+     *
+     * @param map the map from names to metrics.
+     * @param <T> the type of metrics.
+     * @return the sorted copy of the map.
+     */
+    private static <T> Map<String, T> sorted(Map<String, T> map) {
+        Map<String, T> result = new TreeMap<>(
+                Comparator.comparing(Metrics::baseName).thenComparing(Comparator.naturalOrder()));
+        result.putAll(map);
+        return result;
+    }
+
+    /**
+     * Returns the name without its labels.
+     *
+     * @param name the name, which may end with labels in braces.
+     * @return the name up to the opening brace.
+     */
+    private static String baseName(String name) {
+        int brace = name.indexOf('{');
+        return brace == -1 ? name : name.substring(0, brace);
+    }
+
+    /**
+     * A counter or gauge read when reported.
+     */
+    private static class Sample {
+        private final String type;
+        private final DoubleSupplier value;
+        /**
+         * The adder behind the value, or null if the value is read from elsewhere.
+         */
+        private final LongAdder adder;
+
+        /**
+         * Constructs a sample of the given Prometheus type.
+         *
+         * @param type  the Prometheus type, either "counter" or "gauge".
+         * @param value the supplier of the current value.
+         * @param adder the adder behind the value, or null.
+         */
+        Sample(String type, DoubleSupplier value, LongAdder adder) {
+            this.type = type;
+            this.value = value;
+            this.adder = adder;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package server;
+
+import org.locationtech.spatial4j.shape.Point;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Encoded polyline format for sending routes compactly to clients and map APIs. Each coordinate is stored as the
+ * difference from the previous one in a variable number of printable characters. Long routes can be simplified for a
+ * zoom level first, since points closer together than a pixel cannot be told apart on screen.
+ *
+ * @see PolylineCache
+ * @see <a href="https://developers.google.com/maps/documentation/utilities/polylinealgorithm">Polyline Algorithm</a>
+ */
+public class Polyline {
+    /**
+     * The maximum number of characters in an encoded coordinate difference, which holds 35 bits.
+     */
+    private static final int MAX_VALUE_LENGTH = 7;
+    /**
+     * The maximum distance in pixels between a simplified route and a dropped point.
+     */
+    private static final double TOLERANCE_PIXELS = 0.5;
+
+    /**
+     * Returns the route encoded in the polyline format with 5 decimal digits of precision.
+     *
+     * @param route list of points representing the route to encode.
+     * @return an encoded route string.
+     * @see <a href="https://github.com/mapbox/mapbox-java">MapBox PolylineUtils</a>
+     */
+    public static String encode(List<Point> route) {
+        ByteBuffer buffer = ByteBuffer.allocate(maxEncodedLength(route.size()));
+        encode(route, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the route encoded in the polyline format with 5 decimal digits of precision to the buffer as ASCII bytes
+     * without allocating.
+     *
+     * @param route list of points representing the route to encode.
+     * @param out   the buffer to write to, with at least {@link #maxEncodedLength(int)} bytes remaining.
+     * @throws java.nio.BufferOverflowException if the buffer is too small.
+     */
+    public static void encode(List<Point> route, ByteBuffer out) {
+        long lastLat = 0;
+        long lastLon = 0;
+        for (int i = 0; i < route.size(); i += 1) {
+            Point point = route.get(i);
+            long lat = Math.round(point.getLat() * 1e5);
+            long lon = Math.round(point.getLon() * 1e5);
+            put(out, lat - lastLat);
+            put(out, lon - lastLon);
+            lastLat = lat;
+            lastLon = lon;
+        }
+    }
+
+    /**
+     * Returns the maximum number of bytes in the encoding of a route with the given number of points.
+     *
+     * @param points the number of points in the route.
+     * @return the maximum length of the encoded route.
+     */
+    public static int maxEncodedLength(int points) {
+        return 2 * MAX_VALUE_LENGTH * points;
+    }
+
+    /**
+     * Returns the route with the points dropped that are within half a pixel of the simplified route when drawn on
+     * 256-pixel tiles at the given zoom level, using the Douglas-Peucker algorithm. The first and last points are
+     * always kept.
+     *
+     * @param route list of points representing the route to simplify.
+     * @param zoom  the zoom level of 256-pixel tiles at which the route is drawn.
+     * @return the points of the simplified route, in order.
+     * @see <a href="https://en.wikipedia.org/wiki/Ramer%E2%80%93Douglas%E2%80%93Peucker_algorithm">Douglas-Peucker</a>
+     */
+    public static List<Point> simplify(List<Point> route, int zoom) {
+        int n = route.size();
+        if (n <= 2) {
+            return route;
+        }
+        double scale = TileRenderer.TILE_SIZE * Math.pow(2, zoom);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i += 1) {
+            x[i] = TileRenderer.worldX(route.get(i).getLon()) * scale;
+            y[i] = TileRenderer.worldY(route.get(i).getLat()) * scale;
+        }
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        // Explicit stack of (first, last) ranges, since routes can have tens of thousands of points.
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, n - 1});
+        double tolerance = TOLERANCE_PIXELS * TOLERANCE_PIXELS;
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int first = range[0];
+            int last = range[1];
+            int farthest = -1;
+            double max = tolerance;
+            for (int i = first + 1; i < last; i += 1) {
+                double d = squaredSegmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > max) {
+                    max = d;
+                    farthest = i;
+                }
+            }
+            if (farthest != -1) {
+                keep[farthest] = true;
+                ranges.push(new int[]{first, farthest});
+                ranges.push(new int[]{farthest, last});
+            }
+        }
+        List<Point> result = new ArrayList<>();
+        for (int i = 0; i < n; i += 1) {
+            if (keep[i]) {
+                result.add(route.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the zigzag-encoded coordinate difference in groups of 5 bits, least significant first.
+     *
+     * @param out  the buffer to write to.
+     * @param diff the coordinate difference.
+     */
+    private static void put(ByteBuffer out, long diff) {
+        long value = diff < 0 ? ~(diff << 1) : diff << 1;
+        while (value >= 0x20) {
+            out.put((byte) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        out.put((byte) (value + 63));
+    }
+
+    /**
+     * Returns the squared distance from the point to the segment.
+     *
+     * @param px the x-coordinate of the point.
+     * @param py the y-coordinate of the point.
+     * @param ax the x-coordinate of the start of the segment.
+     * @param ay the y-coordinate of the start of the segment.
+     * @param bx the x-coordinate of the end of the segment.
+     * @param by the y-coordinate of the end of the segment.
+     * @return the squared distance from the point to the segment.
+     */
+    private static double squaredSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double length = dx * dx + dy * dy;
+        double t = length == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / length));
+        double cx = ax + t * dx - px;
+        double cy = ay + t * dy - py;
+        return cx * cx + cy * cy;
+    }
+}
@@ -0,0 +1,100 @@
+package server;
+
+import cache.LRUCache;
+import org.locationtech.spatial4j.shape.Point;
+
+import java.util.List;
+
+/**
+ * Cache of routes simplified and encoded for each zoom level, so that panning around a route or rendering it again
+ * does no simplification or encoding. Routes are keyed by their id, which names their start and goal vertex, together
+ * with the zoom level, so that entries hold no full routes and comparing keys costs nothing. An id names the same route
+ * only as long as the edge weights of the graph stay the same, so routes without an id are not cached.
+ *
+ * @see Polyline
+ */
+public class PolylineCache {
+    private final LRUCache<Key, List<Point>> simplified;
+    private final LRUCache<Key, String> encoded;
+
+    /**
+     * Constructs an empty cache holding up to the given number of simplified and encoded routes.
+     *
+     * @param capacity the maximum number of entries of each kind.
+     */
+    public PolylineCache(int capacity) {
+        this.simplified = new LRUCache<>(capacity);
+        this.encoded = new LRUCache<>(capacity);
+    }
+
+    /**
+     * Returns the route simplified for the zoom level.
+     *
+     * @param routeId the id of the route, or null to not cache the result.
+     * @param route   the route to simplify.
+     * @param zoom    the zoom level of 256-pixel tiles at which the route is drawn.
+     * @return the simplified route.
+     * @see Polyline#simplify(List, int)
+     */
+    public List<Point> simplified(String routeId, List<Point> route, int zoom) {
+        if (routeId == null) {
+            return Polyline.simplify(route, zoom);
+        }
+        return simplified.computeIfAbsent(new Key(routeId, zoom), (key) -> Polyline.simplify(route, zoom));
+    }
+
+    /**
+     * Returns the route simplified for the zoom level and encoded in the polyline format.
+     *
+     * @param routeId the id of the route, or null to not cache the result.
+     * @param route   the route to encode.
+     * @param zoom    the zoom level of 256-pixel tiles at which the route is drawn.
+     * @return the encoded simplified route.
+     * @see Polyline#encode(List)
+     */
+    public String encoded(String routeId, List<Point> route, int zoom) {
+        if (routeId == null) {
+            return Polyline.encode(Polyline.simplify(route, zoom));
+        }
+        return encoded.computeIfAbsent(new Key(routeId, zoom),
+                (key) -> Polyline.encode(simplified(routeId, route, zoom)));
+    }
+
+    /**
+     * Returns the cache of encoded routes for reporting its size, hits, and misses.
+     *
+     * @return the cache of encoded routes.
+     */
+    public LRUCache<?, String> encoded() {
+        return encoded;
+    }
+
+    /**
+     * A route id and a zoom level.
+     */
+    private static class Key {
+        private final String routeId;
+        private final int zoom;
+
+        /**
+         * Constructs a key for the route at the zoom level.
+         *
+         * @param routeId the route id.
+         * @param zoom    the zoom level.
+         */
+        Key(String routeId, int zoom) {
+            this.routeId = routeId;
+            this.zoom = zoom;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && routeId.equals(other.routeId) && zoom == other.zoom;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * routeId.hashCode() + zoom;
+        }
+    }
+}
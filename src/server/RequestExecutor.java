@@ -0,0 +1,189 @@
+package server;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpStatus;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Runs request handlers on virtual threads so that blocking work, such as fetching a remote image, never ties up the
+ * web server's threads, and runs CPU-heavy work such as routing on a bounded pool of platform threads. Load is shed at
+ * two points: a request that would exceed the limit on requests in flight is answered with 429 Too Many Requests, and
+ * CPU-heavy work that finds the pool's queue full is rejected with a {@link RejectedExecutionException}, which the
+ * server should answer with 503 Service Unavailable. The latency of every request is recorded in a
+ * {@link LatencyHistogram} per endpoint.
+ *
+ * @see LatencyHistogram
+ */
+public class RequestExecutor {
+    private final ExecutorService virtualThreads;
+    private final ThreadPoolExecutor computePool;
+    /**
+     * Pool for the parallel parts of CPU-heavy tasks, with as many threads as the {@link #computePool}, so that batch
+     * work is bounded rather than spread over the common ForkJoinPool.
+     */
+    private final ExecutorService parallelPool;
+    /**
+     * Permits for requests in flight, so that a burst of slow requests cannot create unbounded virtual threads.
+     */
+    private final Semaphore inFlight;
+    private final Map<String, LatencyHistogram> latencies;
+    private final LongAdder tooManyRequests;
+    private final LongAdder rejectedTasks;
+
+    /**
+     * Constructs an executor with the given limits.
+     *
+     * @param maxInFlight   the maximum number of requests in flight.
+     * @param threads       the number of threads for CPU-heavy work.
+     * @param queueCapacity the maximum number of CPU-heavy tasks waiting for a thread.
+     * @throws IllegalArgumentException if a limit is not positive.
+     */
+    public RequestExecutor(int maxInFlight, int threads, int queueCapacity) {
+        if (maxInFlight <= 0 || threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        computePool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        parallelPool = Executors.newFixedThreadPool(threads);
+        inFlight = new Semaphore(maxInFlight);
+        latencies = new ConcurrentHashMap<>();
+        tooManyRequests = new LongAdder();
+        rejectedTasks = new LongAdder();
+    }
+
+    /**
+     * Returns a handler that runs the given handler on a virtual thread and records its latency under the endpoint
+     * name, or answers 429 Too Many Requests if too many requests are in flight. Exceptions thrown by the handler are
+     * passed to the server's exception handlers.
+     *
+     * @param endpoint the endpoint name for latency reporting.
+     * @param handler  the handler to run.
+     * @return a handler that runs the given handler on a virtual thread.
+     */
+    public Handler async(String endpoint, Handler handler) {
+        LatencyHistogram histogram = latencies.computeIfAbsent(endpoint, (k) -> new LatencyHistogram());
+        return ctx -> {
+            if (!inFlight.tryAcquire()) {
+                tooManyRequests.increment();
+                ctx.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").result("Too many requests");
+                return;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<Void> future;
+            try {
+                future = CompletableFuture.runAsync(() -> {
+                    try {
+                        handler.handle(ctx);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, virtualThreads);
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                throw e;
+            }
+            ctx.future(() -> future.whenComplete((result, error) -> {
+                inFlight.release();
+                histogram.record(System.nanoTime() - start);
+            }));
+        };
+    }
+
+    /**
+     * Runs the CPU-heavy task on the bounded pool and waits for its result. The caller should be a virtual thread, for
+     * which waiting is cheap.
+     *
+     * @param task the task to run.
+     * @param <T>  the type of the result.
+     * @return the result of the task.
+     * @throws RejectedExecutionException if the pool's queue is full.
+     * @throws Exception                  if the task throws an exception.
+     */
+    public <T> T compute(Callable<T> task) throws Exception {
+        Future<T> future;
+        try {
+            future = computePool.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedTasks.increment();
+            throw e;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the CPU-heavy task on the bounded pool like {@link #compute(Callable)}, passing it an executor on which to
+     * run its parallel parts, such as the groups of a batch request. The parts of every task share one pool of as many
+     * threads as the bounded pool, and they wait in its queue rather than being rejected, since the task itself was
+     * already admitted.
+     *
+     * @param task the task to run, given the executor for its parallel parts.
+     * @param <T>  the type of the result.
+     * @return the result of the task.
+     * @throws RejectedExecutionException if the pool's queue is full.
+     * @throws Exception                  if the task throws an exception.
+     */
+    public <T> T computeParallel(Function<Executor, T> task) throws Exception {
+        return compute(() -> task.apply(parallelPool));
+    }
+
+    /**
+     * Returns the latency summary of each endpoint by name.
+     *
+     * @return the latency summary of each endpoint.
+     */
+    public Map<String, LatencyHistogram.Summary> latencySummaries() {
+        Map<String, LatencyHistogram.Summary> result = new TreeMap<>();
+        latencies.forEach((endpoint, histogram) -> result.put(endpoint, histogram.summary()));
+        return result;
+    }
+
+    /**
+     * Returns the latency histogram of each endpoint by name.
+     *
+     * @return the latency histogram of each endpoint.
+     */
+    public Map<String, LatencyHistogram> latencies() {
+        return new TreeMap<>(latencies);
+    }
+
+    /**
+     * Returns the number of requests answered with 429 Too Many Requests.
+     *
+     * @return the number of requests turned away for too many requests in flight.
+     */
+    public long tooManyRequests() {
+        return tooManyRequests.sum();
+    }
+
+    /**
+     * Returns the number of CPU-heavy tasks rejected because the pool's queue was full.
+     *
+     * @return the number of rejected tasks.
+     */
+    public long rejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
+    /**
+     * Returns the number of CPU-heavy tasks waiting for a thread.
+     *
+     * @return the number of queued tasks.
+     */
+    public int queuedTasks() {
+        return computePool.getQueue().size();
+    }
+}
@@ -0,0 +1,54 @@
+package server;
+
+import org.locationtech.spatial4j.shape.Point;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * {@link MapImageSource} that returns the same blank PNG for every request after an optional fixed delay, which stands
+ * in for a remote map API in load tests without network access or API tokens.
+ *
+ * @see MapImageSource
+ */
+public class StubImageSource implements MapImageSource {
+    private final byte[] png;
+    private final long delayMillis;
+
+    /**
+     * Constructs a stub that responds after the given delay, simulating the latency of a remote map API.
+     *
+     * @param delayMillis the delay before each image is returned in milliseconds.
+     */
+    public StubImageSource(long delayMillis) {
+        this.delayMillis = delayMillis;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.png = out.toByteArray();
+    }
+
+    @Override
+    public InputStream image(Point center, int zoom, int width, int height, String routeId, List<Point> route,
+                             List<Point> locations) throws IOException {
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while simulating latency");
+            }
+        }
+        return new ByteArrayInputStream(png);
+    }
+}
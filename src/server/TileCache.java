@@ -0,0 +1,155 @@
+package server;
+
+import cache.LRUCache;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Two-level cache of road network tiles keyed by z/x/y. Tiles are looked up decoded in an in-memory {@link LRUCache},
+ * then PNG-encoded in a directory laid out as {@code z/x/y.png}, and only rendered by the {@link TileRenderer} when
+ * missing from both. Since the road geometry never changes while the server runs, tiles never expire; the directory
+ * should be specific to the map data, so that tiles drawn from older data are never read.
+ *
+ * @see TileRenderer
+ */
+public class TileCache {
+    /**
+     * The maximum zoom level of a tile.
+     */
+    public static final int MAX_ZOOM = 20;
+    private final TileRenderer renderer;
+    private final LRUCache<String, BufferedImage> memory;
+    /**
+     * The directory of cached tiles, or null to cache tiles in memory only.
+     */
+    private final Path directory;
+
+    /**
+     * Constructs an empty cache of tiles drawn by the renderer.
+     *
+     * @param renderer  the renderer for tiles missing from the cache.
+     * @param capacity  the maximum number of tiles kept in memory.
+     * @param directory the directory of cached tiles, or null to cache tiles in memory only.
+     */
+    public TileCache(TileRenderer renderer, int capacity, Path directory) {
+        this.renderer = renderer;
+        this.memory = new LRUCache<>(capacity);
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the PNG-encoded tile at the given zoom level and tile coordinates, read from the directory if possible.
+     *
+     * @param z the zoom level.
+     * @param x the column of the tile from the west.
+     * @param y the row of the tile from the north.
+     * @return the PNG-encoded tile.
+     * @throws IllegalArgumentException if the tile coordinates are out of range.
+     * @throws UncheckedIOException     if the tile cannot be read from or written to the directory.
+     */
+    public byte[] png(int z, int x, int y) {
+        BufferedImage tile = image(z, x, y);
+        Path file = file(z, x, y);
+        try {
+            // Tiles are written to the directory when rendered, so reading the file avoids encoding the image again.
+            if (file != null && Files.isRegularFile(file)) {
+                return Files.readAllBytes(file);
+            }
+            return encode(tile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the decoded tile at the given zoom level and tile coordinates, loading and caching it on a miss.
+     *
+     * @param z the zoom level.
+     * @param x the column of the tile from the west.
+     * @param y the row of the tile from the north.
+     * @return the decoded tile, which callers must not modify.
+     * @throws IllegalArgumentException if the tile coordinates are out of range.
+     * @throws UncheckedIOException     if the tile cannot be read from or written to the directory.
+     */
+    public BufferedImage image(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM || x < 0 || x >= (1 << z) || y < 0 || y >= (1 << z)) {
+            throw new IllegalArgumentException("Invalid tile " + z + "/" + x + "/" + y);
+        }
+        return memory.computeIfAbsent(z + "/" + x + "/" + y, (key) -> {
+            try {
+                return load(z, x, y);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the cache of tiles in memory for reporting its size, hits, and misses.
+     *
+     * @return the cache of tiles in memory.
+     */
+    public LRUCache<String, BufferedImage> memory() {
+        return memory;
+    }
+
+    /**
+     * Returns the file of the tile in the directory.
+     *
+     * @param z the zoom level.
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the file of the tile, or null if tiles are cached in memory only.
+     */
+    private Path file(int z, int x, int y) {
+        return directory != null ? directory.resolve(z + "/" + x + "/" + y + ".png") : null;
+    }
+
+    /**
+     * Reads the tile from the directory, or renders it and writes it to the directory if absent.
+     *
+     * @param z the zoom level.
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the decoded tile.
+     * @throws IOException if the tile cannot be read or written.
+     */
+    private BufferedImage load(int z, int x, int y) throws IOException {
+        Path file = file(z, x, y);
+        if (file != null && Files.isRegularFile(file)) {
+            BufferedImage tile = ImageIO.read(file.toFile());
+            if (tile != null) {
+                return tile;
+            }
+        }
+        BufferedImage tile = renderer.tile(z, x, y);
+        if (file != null) {
+            // Write to a temporary file and move it so that concurrent readers never see a partial tile.
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), y + "-", ".tmp");
+            Files.write(temporary, encode(tile));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the tile encoded as a PNG.
+     *
+     * @param tile the decoded tile.
+     * @return the PNG bytes of the tile.
+     * @throws IOException if the tile cannot be encoded.
+     */
+    private static byte[] encode(BufferedImage tile) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(tile, "png", out);
+        return out.toByteArray();
+    }
+}
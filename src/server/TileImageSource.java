@@ -0,0 +1,79 @@
+package server;
+
+import org.locationtech.spatial4j.shape.Point;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * {@link MapImageSource} that composes cached road network tiles into the requested window and draws the route and
+ * pins on top, so that map images need no outbound network. Only the overlays are drawn per request, and routes are
+ * simplified for the zoom level first. The scale matches the Mapbox Static Images API at @2x, so tiles are drawn at
+ * the zoom level {@link MapImageSource#tileZoom(int)} returns.
+ *
+ * @see TileCache
+ * @see MapboxImageSource
+ */
+public class TileImageSource implements MapImageSource {
+    private final TileCache tiles;
+    private final PolylineCache polylines;
+
+    /**
+     * Constructs an image source drawing tiles from the given cache.
+     *
+     * @param tiles     the cache of road network tiles.
+     * @param polylines the cache of simplified routes.
+     */
+    public TileImageSource(TileCache tiles, PolylineCache polylines) {
+        this.tiles = tiles;
+        this.polylines = polylines;
+    }
+
+    @Override
+    public InputStream image(Point center, int zoom, int width, int height, String routeId, List<Point> route,
+                             List<Point> locations) throws IOException {
+        int z = Math.max(0, Math.min(TileCache.MAX_ZOOM, MapImageSource.tileZoom(zoom)));
+        int size = TileRenderer.TILE_SIZE;
+        int side = 1 << z;
+        double left = TileRenderer.worldX(center.getLon()) * size * side - width / 2.0;
+        double top = TileRenderer.worldY(center.getLat()) * size * side - height / 2.0;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            int minX = (int) Math.floor(left / size);
+            int maxX = (int) Math.floor((left + width - 1) / size);
+            int minY = Math.max(0, (int) Math.floor(top / size));
+            int maxY = Math.min(side - 1, (int) Math.floor((top + height - 1) / size));
+            for (int x = minX; x <= maxX; x += 1) {
+                for (int y = minY; y <= maxY; y += 1) {
+                    // Wrap around the antimeridian.
+                    BufferedImage tile = tiles.image(z, Math.floorMod(x, side), y);
+                    g.drawImage(tile, (int) Math.round(x * size - left), (int) Math.round(y * size - top), null);
+                }
+            }
+            List<Point> drawn = route != null ? polylines.simplified(routeId, route, z) : List.of();
+            TileRenderer.drawOverlays(g, z, left, top, drawn, locations != null ? locations : List.of());
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Returns true, since rendering missing tiles, composing the window, and encoding the PNG all use the CPU.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean isComputeBound() {
+        return true;
+    }
+}
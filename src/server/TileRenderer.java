@@ -0,0 +1,257 @@
+package server;
+
+import org.locationtech.spatial4j.shape.Point;
+
+import java.awt.*;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Renders 256-pixel Web Mercator map tiles of a road network with Java2D, along with route and pin overlays. Road
+ * segments are bucketed into a grid of cells at {@link #INDEX_ZOOM} so that rendering a tile only visits the segments
+ * near it.
+ *
+ * @see TileCache
+ * @see TileImageSource
+ */
+public class TileRenderer {
+    /**
+     * The width and height of a tile in pixels.
+     */
+    public static final int TILE_SIZE = 256;
+    /**
+     * The zoom level of the cells of the segment index.
+     */
+    private static final int INDEX_ZOOM = 14;
+    private static final Color BACKGROUND = new Color(0xf2efe9);
+    private static final Color ROAD_CASING = new Color(0xc8c3ba);
+    private static final Color ROAD = Color.WHITE;
+    private static final Color ROUTE = new Color(0x6cb5e6);
+    private static final Color PIN = new Color(0xd9534f);
+    /**
+     * The endpoints of each road segment in world coordinates from 0 to 1: x1, y1, x2, y2.
+     */
+    private final double[] segments;
+    /**
+     * The segments crossing each index cell, keyed by {@link #cell(int, int)}.
+     */
+    private final Map<Long, int[]> index;
+
+    /**
+     * Constructs a renderer for the given road segments.
+     *
+     * @param roads the endpoints of each road segment as lon1, lat1, lon2, lat2.
+     * @throws IllegalArgumentException if the number of coordinates is not a multiple of 4.
+     */
+    public TileRenderer(double[] roads) {
+        if (roads.length % 4 != 0) {
+            throw new IllegalArgumentException("Expected lon1, lat1, lon2, lat2 for each segment");
+        }
+        segments = new double[roads.length];
+        for (int i = 0; i < roads.length; i += 2) {
+            segments[i] = worldX(roads[i]);
+            segments[i + 1] = worldY(roads[i + 1]);
+        }
+        Map<Long, List<Integer>> cells = new HashMap<>();
+        int side = 1 << INDEX_ZOOM;
+        for (int s = 0; s < segments.length / 4; s += 1) {
+            int minX = clamp((int) (Math.min(segments[4 * s], segments[4 * s + 2]) * side), side);
+            int maxX = clamp((int) (Math.max(segments[4 * s], segments[4 * s + 2]) * side), side);
+            int minY = clamp((int) (Math.min(segments[4 * s + 1], segments[4 * s + 3]) * side), side);
+            int maxY = clamp((int) (Math.max(segments[4 * s + 1], segments[4 * s + 3]) * side), side);
+            for (int x = minX; x <= maxX; x += 1) {
+                for (int y = minY; y <= maxY; y += 1) {
+                    cells.computeIfAbsent(cell(x, y), (k) -> new ArrayList<>()).add(s);
+                }
+            }
+        }
+        index = new HashMap<>();
+        for (Map.Entry<Long, List<Integer>> entry : cells.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Returns the road network tile at the given zoom level and tile coordinates.
+     *
+     * @param z the zoom level.
+     * @param x the column of the tile from the west.
+     * @param y the row of the tile from the north.
+     * @return the rendered tile.
+     */
+    public BufferedImage tile(int z, int x, int y) {
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            double scale = TILE_SIZE * Math.pow(2, z);
+            int[] visible = segmentsNear(z, x, y);
+            float width = Math.max(1, z - 11);
+            // Draw all casings before all fills so that intersections are not outlined.
+            g.setStroke(new BasicStroke(width + 2, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.setColor(ROAD_CASING);
+            drawSegments(g, visible, scale, x * TILE_SIZE, y * TILE_SIZE);
+            g.setStroke(new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.setColor(ROAD);
+            drawSegments(g, visible, scale, x * TILE_SIZE, y * TILE_SIZE);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Draws the route and pins over an image whose top-left corner is at the given pixel coordinates of the zoom level.
+     *
+     * @param g         the graphics context of the image.
+     * @param z         the zoom level.
+     * @param left      the pixel x-coordinate of the left edge of the image.
+     * @param top       the pixel y-coordinate of the top edge of the image.
+     * @param route     the route points, which may be empty.
+     * @param locations the locations to pin, which may be empty.
+     */
+    public static void drawOverlays(Graphics2D g, int z, double left, double top, List<Point> route,
+                                    List<Point> locations) {
+        double scale = TILE_SIZE * Math.pow(2, z);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (route.size() > 1) {
+            Path2D.Double path = new Path2D.Double();
+            path.moveTo(worldX(route.get(0).getLon()) * scale - left, worldY(route.get(0).getLat()) * scale - top);
+            for (int i = 1; i < route.size(); i += 1) {
+                path.lineTo(worldX(route.get(i).getLon()) * scale - left, worldY(route.get(i).getLat()) * scale - top);
+            }
+            g.setStroke(new BasicStroke(4, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.setColor(ROUTE);
+            g.draw(path);
+        }
+        g.setColor(PIN);
+        for (Point location : locations) {
+            double px = worldX(location.getLon()) * scale - left;
+            double py = worldY(location.getLat()) * scale - top;
+            g.fillOval((int) px - 5, (int) py - 5, 10, 10);
+        }
+    }
+
+    /**
+     * Returns the Web Mercator x-coordinate of the longitude, from 0 at the antimeridian west to 1 east.
+     *
+     * @param lon the longitude in degrees.
+     * @return the world x-coordinate.
+     */
+    public static double worldX(double lon) {
+        return (lon + 180) / 360;
+    }
+
+    /**
+     * Returns the Web Mercator y-coordinate of the latitude, from 0 in the north to 1 in the south.
+     *
+     * @param lat the latitude in degrees.
+     * @return the world y-coordinate.
+     */
+    public static double worldY(double lat) {
+        double radians = Math.toRadians(lat);
+        return (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2;
+    }
+
+    /**
+     * Draws the given segments translated by the given pixel offset.
+     *
+     * @param g        the graphics context.
+     * @param visible  the segment ids.
+     * @param scale    the number of pixels per world unit.
+     * @param offsetX  the pixel x-coordinate of the left edge of the tile.
+     * @param offsetY  the pixel y-coordinate of the top edge of the tile.
+     */
+    private void drawSegments(Graphics2D g, int[] visible, double scale, double offsetX, double offsetY) {
+        Line2D.Double line = new Line2D.Double();
+        for (int s : visible) {
+            line.setLine(segments[4 * s] * scale - offsetX, segments[4 * s + 1] * scale - offsetY,
+                    segments[4 * s + 2] * scale - offsetX, segments[4 * s + 3] * scale - offsetY);
+            g.draw(line);
+        }
+    }
+
+    /**
+     * Returns the ids of the segments in the index cells overlapping the tile or its immediate surroundings, so that
+     * wide strokes from just outside the tile are not cut off.
+     *
+     * @param z the zoom level.
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the ids of the nearby segments without duplicates.
+     */
+    private int[] segmentsNear(int z, int x, int y) {
+        int side = 1 << INDEX_ZOOM;
+        int minX;
+        int maxX;
+        int minY;
+        int maxY;
+        if (z >= INDEX_ZOOM) {
+            int shift = z - INDEX_ZOOM;
+            minX = (x >> shift) - 1;
+            maxX = (x >> shift) + 1;
+            minY = (y >> shift) - 1;
+            maxY = (y >> shift) + 1;
+        } else {
+            int shift = INDEX_ZOOM - z;
+            minX = (x << shift) - 1;
+            maxX = ((x + 1) << shift);
+            minY = (y << shift) - 1;
+            maxY = ((y + 1) << shift);
+        }
+        minX = clamp(minX, side);
+        maxX = clamp(maxX, side);
+        minY = clamp(minY, side);
+        maxY = clamp(maxY, side);
+        BitSet seen = new BitSet(segments.length / 4);
+        long cellsInRange = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        if (cellsInRange > index.size()) {
+            // Zoomed far out: scanning the occupied cells is cheaper than scanning the range.
+            for (Map.Entry<Long, int[]> entry : index.entrySet()) {
+                int cx = (int) (entry.getKey() >>> 32);
+                int cy = (int) (long) entry.getKey();
+                if (minX <= cx && cx <= maxX && minY <= cy && cy <= maxY) {
+                    for (int s : entry.getValue()) {
+                        seen.set(s);
+                    }
+                }
+            }
+        } else {
+            for (int cx = minX; cx <= maxX; cx += 1) {
+                for (int cy = minY; cy <= maxY; cy += 1) {
+                    for (int s : index.getOrDefault(cell(cx, cy), new int[0])) {
+                        seen.set(s);
+                    }
+                }
+            }
+        }
+        return seen.stream().toArray();
+    }
+
+    /**
+     * Returns the key of the index cell in the given column and row.
+     *
+     * @param x the column.
+     * @param y the row.
+     * @return the key of the cell.
+     */
+    private static long cell(int x, int y) {
+        return ((long) x << 32) | y;
+    }
+
+    /**
+     * Returns the value clamped to the range from 0 to side - 1.
+     *
+     * @param value the value.
+     * @param side  the number of cells along each side.
+     * @return the clamped value.
+     */
+    private static int clamp(int value, int side) {
+        return Math.max(0, Math.min(side - 1, value));
+    }
+}